@@ -0,0 +1,296 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import ru.gpm.example.mybatis.min.swing.BulkWebsiteChecker;
+import ru.gpm.example.mybatis.min.swing.HttpClientChecker;
+import ru.gpm.example.mybatis.min.swing.ProbeMode;
+import ru.gpm.example.mybatis.min.swing.WebsiteChecker;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон проверки сайтов против StandInServer без выхода в сеть.
+ * <p>
+ * Запрос с номером i всегда получает одно и то же поведение сервера, поэтому прогоны
+ * с одинаковыми параметрами сопоставимы. Выводит пропускную способность, процентили
+ * полного времени проверки, распределение исходов по поведению сервера и расход ресурсов:
+ * время CPU процесса, пик потоков и файловых дескрипторов, сборки мусора.
+ * <p>
+ * Запуск: {@code java -cp target/benchmarks.jar ru.gpm.example.mybatis.min.swing.bench.CheckerLoadDriver --help}
+ */
+public class CheckerLoadDriver {
+    private static final String USAGE =
+        "Usage: CheckerLoadDriver [--requests N] [--warmup N] [--concurrency N] [--checker url|httpclient]"
+            + " [--probe get|head] [--connect-timeout MS] [--read-timeout MS] [--latency MS] [--jitter MS]"
+            + " [--error-rate R] [--slow-body-rate R] [--hang-rate R] [--reset-rate R] [--seed S]";
+
+    private int requests = 2000;
+    private int warmup = 200;
+    private int concurrency = 64;
+    private boolean httpClient;
+    private ProbeMode probeMode = ProbeMode.GET;
+    private int connectTimeoutMillis = 1000;
+    private int readTimeoutMillis = 1000;
+
+    public static void main(String[] args) throws Exception {
+        CheckerLoadDriver driver = new CheckerLoadDriver();
+        StandInServer.Config config = new StandInServer.Config();
+        long latency = 0;
+        long jitter = 0;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--requests":
+                        driver.requests = Integer.parseInt(args[++i]);
+                        break;
+                    case "--warmup":
+                        driver.warmup = Integer.parseInt(args[++i]);
+                        break;
+                    case "--concurrency":
+                        driver.concurrency = Integer.parseInt(args[++i]);
+                        break;
+                    case "--checker":
+                        driver.httpClient = "httpclient".equalsIgnoreCase(args[++i]);
+                        break;
+                    case "--probe":
+                        driver.probeMode = "head".equalsIgnoreCase(args[++i]) ? ProbeMode.HEAD_FIRST : ProbeMode.GET;
+                        break;
+                    case "--connect-timeout":
+                        driver.connectTimeoutMillis = Integer.parseInt(args[++i]);
+                        break;
+                    case "--read-timeout":
+                        driver.readTimeoutMillis = Integer.parseInt(args[++i]);
+                        break;
+                    case "--latency":
+                        latency = Long.parseLong(args[++i]);
+                        break;
+                    case "--jitter":
+                        jitter = Long.parseLong(args[++i]);
+                        break;
+                    case "--error-rate":
+                        config.errorRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--slow-body-rate":
+                        config.slowBodyRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--hang-rate":
+                        config.hangRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--reset-rate":
+                        config.resetRate(Double.parseDouble(args[++i]));
+                        break;
+                    case "--seed":
+                        config.seed(Long.parseLong(args[++i]));
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            config.latency(latency, jitter);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() != null ? e.getMessage() : "Missing option value");
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try (StandInServer server = new StandInServer(config)) {
+            driver.run(server);
+        }
+        System.exit(0);
+    }
+
+    private void run(StandInServer server) {
+        try (BulkWebsiteChecker checker = newChecker()) {
+            if (warmup > 0) {
+                // Прогрев на тех же запросах, что и замер: JIT, пулы соединений и потоков
+                drive(checker, server, Math.min(warmup, requests), null);
+            }
+            Report report = new Report(requests);
+            drive(checker, server, requests, report);
+            report.print(server);
+        }
+    }
+
+    private BulkWebsiteChecker newChecker() {
+        if (httpClient) {
+            // У HttpClient собственные фиксированные таймауты: 5 с на подключение, 10 с на запрос
+            HttpClientChecker client = new HttpClientChecker(Executors.newCachedThreadPool(), probeMode);
+            return BulkWebsiteChecker.nonBlocking(concurrency, client::checkAsync, null);
+        }
+        return new BulkWebsiteChecker(concurrency,
+            url -> WebsiteChecker.checkWebsite(url, probeMode, connectTimeoutMillis, readTimeoutMillis));
+    }
+
+    private static void drive(BulkWebsiteChecker checker, StandInServer server, int count, Report report) {
+        List<String> urls = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return server.url(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+        if (report != null) {
+            report.start();
+        }
+        checker.checkAll(urls, (url, result) -> {
+            if (report != null) {
+                long index = requestIndex(url);
+                report.record((int) index, server.behaviorOf(index), result);
+            }
+        }).join();
+        if (report != null) {
+            report.stop();
+        }
+    }
+
+    private static long requestIndex(String url) {
+        return Long.parseLong(url.substring(url.lastIndexOf('=') + 1));
+    }
+
+    /**
+     * Результаты замера и расход ресурсов
+     */
+    private static final class Report {
+        private static final int BEHAVIORS = StandInServer.Behavior.values().length;
+        private static final int OUTCOMES = WebsiteChecker.Outcome.values().length;
+
+        // Полное время каждой проверки по номеру запроса; процентили считаются точно
+        private final AtomicLongArray latencies;
+        private final AtomicIntegerArray outcomes = new AtomicIntegerArray(BEHAVIORS * OUTCOMES);
+        private final AtomicLong peakFileDescriptors = new AtomicLong();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-driver-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private long startNanos;
+        private long elapsedNanos;
+        private long startCpuNanos;
+        private long cpuNanos;
+        private long startGcCount;
+        private long startGcMillis;
+        private long gcCount;
+        private long gcMillis;
+
+        Report(int requests) {
+            latencies = new AtomicLongArray(requests);
+        }
+
+        void start() {
+            threads.resetPeakThreadCount();
+            startGcCount = gcCount();
+            startGcMillis = gcMillis();
+            startCpuNanos = processCpuNanos();
+            sampler.scheduleAtFixedRate(this::sample, 0, 50, TimeUnit.MILLISECONDS);
+            startNanos = System.nanoTime();
+        }
+
+        void record(int index, StandInServer.Behavior behavior, WebsiteChecker.CheckResult result) {
+            latencies.set(index, result.getTotalNanos());
+            outcomes.incrementAndGet(behavior.ordinal() * OUTCOMES + result.getOutcome().ordinal());
+        }
+
+        void stop() {
+            elapsedNanos = System.nanoTime() - startNanos;
+            cpuNanos = processCpuNanos() - startCpuNanos;
+            gcCount = gcCount() - startGcCount;
+            gcMillis = gcMillis() - startGcMillis;
+            sampler.shutdownNow();
+            sample();
+        }
+
+        private void sample() {
+            if (os instanceof com.sun.management.UnixOperatingSystemMXBean) {
+                long fds = ((com.sun.management.UnixOperatingSystemMXBean) os).getOpenFileDescriptorCount();
+                peakFileDescriptors.accumulateAndGet(fds, Math::max);
+            }
+        }
+
+        private long processCpuNanos() {
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+            }
+            return 0;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static long gcCount() {
+            long total = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                total += Math.max(0, gc.getCollectionCount());
+            }
+            return total;
+        }
+
+        private static long gcMillis() {
+            long total = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                total += Math.max(0, gc.getCollectionTime());
+            }
+            return total;
+        }
+
+        void print(StandInServer server) {
+            long[] sorted = new long[latencies.length()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "requests: %d in %.3f s, %.1f req/s%n",
+                sorted.length, seconds, sorted.length / seconds));
+            out.append(String.format(Locale.ROOT, "latency ms: p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f%n",
+                percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6, percentile(sorted, 99) / 1e6,
+                percentile(sorted, 99.9) / 1e6, sorted[sorted.length - 1] / 1e6));
+            out.append("outcomes by server behavior:\n");
+            for (StandInServer.Behavior behavior : StandInServer.Behavior.values()) {
+                StringBuilder line = new StringBuilder();
+                for (WebsiteChecker.Outcome outcome : WebsiteChecker.Outcome.values()) {
+                    int count = outcomes.get(behavior.ordinal() * OUTCOMES + outcome.ordinal());
+                    if (count > 0) {
+                        line.append(' ').append(outcome).append('=').append(count);
+                    }
+                }
+                if (line.length() > 0) {
+                    out.append("  ").append(behavior).append(':').append(line).append('\n');
+                }
+            }
+            long count = Math.max(1, sorted.length);
+            out.append(String.format(Locale.ROOT, "cpu: %.3f s (%.1f us/request)%n",
+                cpuNanos / 1e9, cpuNanos / 1e3 / count));
+            out.append(String.format(Locale.ROOT, "peak threads: %d, peak open fds: %d, server connections left: %d%n",
+                threads.getPeakThreadCount(), peakFileDescriptors.get(), server.getOpenConnections()));
+            Runtime runtime = Runtime.getRuntime();
+            out.append(String.format(Locale.ROOT, "gc: %d collections, %d ms; heap used: %.1f MB%n",
+                gcCount, gcMillis, (runtime.totalMemory() - runtime.freeMemory()) / 1048576.0));
+            System.out.print(out);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.gpm.example.mybatis.min.swing.CircularProgressBar;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отрисовка кадра кругового ProgressBar во внеэкранное изображение,
+ * в кэшированном и исходном режимах
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CircularProgressBarBenchmark {
+    @Param({"true", "false"})
+    private boolean cachedRendering;
+
+    private CircularProgressBar progressBar;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        progressBar = new CircularProgressBar();
+        progressBar.setSize(120, 120);
+        progressBar.setCachedRendering(cachedRendering);
+        progressBar.setText("42%");
+        image = new BufferedImage(120, 120, BufferedImage.TYPE_INT_ARGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintFrame() {
+        frame = (frame + 1) % 100;
+        progressBar.setProgress(frame);
+        progressBar.paint(graphics);
+        return image;
+    }
+}
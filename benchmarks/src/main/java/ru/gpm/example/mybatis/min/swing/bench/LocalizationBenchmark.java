@@ -0,0 +1,47 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.gpm.example.mybatis.min.swing.LocalizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Получение локализованных строк, в том числе с форматированием аргументов
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalizationBenchmark {
+    private LocalizationManager localization;
+    private int responseCode;
+    private long responseTime;
+
+    @Setup
+    public void setup() {
+        localization = LocalizationManager.getInstance();
+        responseCode = 200;
+        responseTime = 123;
+    }
+
+    @Benchmark
+    public String getString() {
+        return localization.getString("result.available.title");
+    }
+
+    @Benchmark
+    public String getStringWithArgs() {
+        return localization.getString("result.available.message", responseCode, responseTime);
+    }
+}
@@ -0,0 +1,372 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP сервер-заглушка в том же процессе для воспроизводимых нагрузочных прогонов без сети.
+ * <p>
+ * Поведение каждого запроса выбирается по его номеру из параметра {@code ?i=N} и зерну:
+ * один и тот же набор запросов получает одни и те же ответы независимо от порядка
+ * и параллельности. Доли поведений задаются в {@link Config}:
+ * <ul>
+ *     <li>ok - ответ 200 после задержки latency ± jitter;</li>
+ *     <li>error - ответ 503 после той же задержки;</li>
+ *     <li>slow body - заголовки сразу, тело по байту раз в slowBodyIntervalMillis;</li>
+ *     <li>hang - соединение принимается, но ответа нет, пока клиент не закроет его;</li>
+ *     <li>reset - соединение сбрасывается (RST) после чтения запроса.</li>
+ * </ul>
+ * Вместо com.sun.net.httpserver используется ServerSocket: сброс соединения и зависание
+ * требуют управления сокетом, которого HttpExchange не дает. Каждое соединение
+ * обслуживается отдельным потоком и закрывается после ответа; с {@link Config#keepAlive(boolean)}
+ * ответы ok и error оставляют его открытым для следующих запросов.
+ */
+public class StandInServer implements AutoCloseable {
+    /**
+     * Поведение сервера для одного запроса
+     */
+    public enum Behavior {
+        OK,
+        ERROR,
+        SLOW_BODY,
+        HANG,
+        RESET
+    }
+
+    /**
+     * Параметры сервера; доли поведений в сумме не больше 1, остаток - OK
+     */
+    public static final class Config {
+        long latencyMillis;
+        long jitterMillis;
+        double errorRate;
+        double slowBodyRate;
+        double hangRate;
+        double resetRate;
+        int slowBodyBytes = 64;
+        long slowBodyIntervalMillis = 100;
+        long seed = 42;
+        boolean keepAlive;
+
+        public Config latency(long latencyMillis, long jitterMillis) {
+            this.latencyMillis = latencyMillis;
+            this.jitterMillis = jitterMillis;
+            return this;
+        }
+
+        public Config errorRate(double rate) {
+            this.errorRate = rate;
+            return this;
+        }
+
+        public Config slowBodyRate(double rate) {
+            this.slowBodyRate = rate;
+            return this;
+        }
+
+        /**
+         * @param bytes размер медленного тела
+         * @param intervalMillis пауза перед каждым байтом
+         */
+        public Config slowBody(int bytes, long intervalMillis) {
+            this.slowBodyBytes = bytes;
+            this.slowBodyIntervalMillis = intervalMillis;
+            return this;
+        }
+
+        public Config hangRate(double rate) {
+            this.hangRate = rate;
+            return this;
+        }
+
+        public Config resetRate(double rate) {
+            this.resetRate = rate;
+            return this;
+        }
+
+        /**
+         * @param keepAlive не закрывать соединение после ответов ok и error
+         */
+        public Config keepAlive(boolean keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        public Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        void validate() {
+            if (latencyMillis < 0 || jitterMillis < 0 || jitterMillis > latencyMillis) {
+                throw new IllegalArgumentException("latency must be >= jitter >= 0: "
+                    + latencyMillis + " ± " + jitterMillis);
+            }
+            double total = errorRate + slowBodyRate + hangRate + resetRate;
+            if (errorRate < 0 || slowBodyRate < 0 || hangRate < 0 || resetRate < 0 || total > 1) {
+                throw new IllegalArgumentException("behavior rates must be in [0, 1] and sum to at most 1");
+            }
+        }
+    }
+
+    private static final byte[] OK_RESPONSE = ("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n"
+        + "Connection: close\r\n\r\nok").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_RESPONSE = ("HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n"
+        + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+    // Ограничение на размер строки запроса и заголовков
+    private static final int MAX_HEADER_BYTES = 8192;
+
+    private final Config config;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    // Открытые соединения; закрываются при остановке, иначе зависшие ждали бы клиента
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Запускает сервер на свободном порту loopback-интерфейса
+     */
+    public StandInServer(Config config) throws IOException {
+        config.validate();
+        this.config = config;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        AtomicInteger counter = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stand-in-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread acceptor = new Thread(this::acceptLoop, "stand-in-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * URL запроса с заданным номером; номер определяет поведение сервера
+     */
+    public String url(long requestIndex) {
+        return "http://" + serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort()
+            + "/?i=" + requestIndex;
+    }
+
+    /**
+     * Поведение для запроса с заданным номером
+     */
+    public Behavior behaviorOf(long requestIndex) {
+        double draw = random(requestIndex).nextDouble();
+        if ((draw -= config.errorRate) < 0) {
+            return Behavior.ERROR;
+        }
+        if ((draw -= config.slowBodyRate) < 0) {
+            return Behavior.SLOW_BODY;
+        }
+        if ((draw -= config.hangRate) < 0) {
+            return Behavior.HANG;
+        }
+        if (draw - config.resetRate < 0) {
+            return Behavior.RESET;
+        }
+        return Behavior.OK;
+    }
+
+    /**
+     * Число соединений, открытых сейчас
+     */
+    public int getOpenConnections() {
+        return open.size();
+    }
+
+    /**
+     * Число соединений, принятых с запуска
+     */
+    public int getAcceptedConnections() {
+        return accepted.get();
+    }
+
+    private SplittableRandom random(long requestIndex) {
+        // Отдельный генератор на запрос: результат не зависит от порядка обработки
+        return new SplittableRandom(config.seed * 0x9E3779B97F4A7C15L + requestIndex);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                open.add(socket);
+                if (!running) {
+                    socket.close();
+                    return;
+                }
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Сокет сервера закрыт - выходим
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (serveRequest(socket, in)) {
+                // Следующий запрос того же соединения
+            }
+        } catch (SocketException e) {
+            // Клиент закрыл соединение раньше, чем получил ответ, - обычный исход для таймаутов
+        } catch (IOException e) {
+            // То же для прочих ошибок ввода-вывода
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            open.remove(socket);
+        }
+    }
+
+    /**
+     * Отвечает на один запрос
+     * @return true, если соединение остается открытым для следующего запроса
+     */
+    private boolean serveRequest(Socket socket, InputStream in) throws IOException, InterruptedException {
+        String requestLine = readRequestLine(in);
+        if (requestLine == null) {
+            return false;
+        }
+        long requestIndex = requestIndex(requestLine);
+        Behavior behavior = behaviorOf(requestIndex);
+        if (behavior == Behavior.RESET) {
+            // SO_LINGER 0: close() отправляет RST вместо FIN
+            socket.setSoLinger(true, 0);
+            return false;
+        }
+        if (behavior == Behavior.HANG) {
+            // Ждем, пока клиент сам закроет соединение по таймауту
+            while (in.read() >= 0) {
+                // Клиент ничего не должен присылать; читаем до закрытия
+            }
+            return false;
+        }
+        OutputStream out = socket.getOutputStream();
+        if (behavior == Behavior.SLOW_BODY) {
+            out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + config.slowBodyBytes
+                + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            for (int i = 0; i < config.slowBodyBytes; i++) {
+                Thread.sleep(config.slowBodyIntervalMillis);
+                out.write('x');
+                out.flush();
+            }
+            return false;
+        }
+        sleepLatency(requestIndex);
+        if (!config.keepAlive) {
+            out.write(behavior == Behavior.ERROR ? ERROR_RESPONSE : OK_RESPONSE);
+            out.flush();
+            return false;
+        }
+        // Ответ на HEAD - только заголовки, иначе тело сдвинуло бы следующий ответ
+        boolean head = requestLine.startsWith("HEAD ");
+        out.write((behavior == Behavior.ERROR
+            ? "HTTP/1.1 503 Service Unavailable\r\nContent-Length: 0\r\n\r\n"
+            : "HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\n" + (head ? "" : "ok"))
+            .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return true;
+    }
+
+    private void sleepLatency(long requestIndex) throws InterruptedException {
+        long delay = config.latencyMillis;
+        if (config.jitterMillis > 0) {
+            SplittableRandom random = random(requestIndex);
+            // Первое значение генератора уже выбрало поведение
+            random.nextDouble();
+            delay += random.nextLong(-config.jitterMillis, config.jitterMillis + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Читает строку запроса и заголовки
+     * @return строка запроса или null, если клиент закрыл соединение
+     */
+    private static String readRequestLine(InputStream in) throws IOException {
+        StringBuilder requestLine = new StringBuilder();
+        int lineBreaks = 0;
+        boolean firstLine = true;
+        for (int read = 0; read < MAX_HEADER_BYTES; read++) {
+            int b = in.read();
+            if (b < 0) {
+                return null;
+            }
+            if (b == '\r') {
+                continue;
+            }
+            if (b == '\n') {
+                firstLine = false;
+                if (++lineBreaks == 2) {
+                    break;
+                }
+                continue;
+            }
+            lineBreaks = 0;
+            if (firstLine) {
+                requestLine.append((char) b);
+            }
+        }
+        return requestLine.toString();
+    }
+
+    /**
+     * Номер запроса из ?i=N или 0 без параметра
+     */
+    private static long requestIndex(String requestLine) {
+        int start = requestLine.indexOf("?i=");
+        if (start < 0) {
+            return 0;
+        }
+        start += 3;
+        int end = start;
+        while (end < requestLine.length() && Character.isDigit(requestLine.charAt(end))) {
+            end++;
+        }
+        return end > start ? Long.parseLong(requestLine.substring(start, end)) : 0;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Закрываем при остановке прогона
+        }
+        for (Socket socket : open) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Соединение уже закрыто
+            }
+        }
+        connections.shutdownNow();
+    }
+}
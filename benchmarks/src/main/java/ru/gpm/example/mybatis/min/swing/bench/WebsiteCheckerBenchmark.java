@@ -0,0 +1,77 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.gpm.example.mybatis.min.swing.HttpClientChecker;
+import ru.gpm.example.mybatis.min.swing.ProbeMode;
+import ru.gpm.example.mybatis.min.swing.WebsiteChecker;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка сайта против локального HTTP сервера в том же процессе.
+ * Измеряются накладные расходы самого клиента, без сетевых задержек.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebsiteCheckerBenchmark {
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClientChecker httpClientChecker;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+        httpClientChecker = new HttpClientChecker();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public WebsiteChecker.CheckResult checkWebsite() {
+        return WebsiteChecker.checkWebsite(url);
+    }
+
+    @Benchmark
+    public WebsiteChecker.CheckResult checkWebsiteHeadFirst() {
+        return WebsiteChecker.checkWebsite(url, ProbeMode.HEAD_FIRST);
+    }
+
+    @Benchmark
+    public WebsiteChecker.CheckResult httpClientCheck() {
+        return httpClientChecker.check(url);
+    }
+}
@@ -0,0 +1,113 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.gpm.example.mybatis.min.swing.CachingWebsiteChecker;
+import ru.gpm.example.mybatis.min.swing.WebsiteChecker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Массовая отмена проверок, зависших в ожидании ответа.
+ * <p>
+ * StandInServer в режиме hang принимает соединение и держит его, пока клиент не закроет
+ * свой сокет, поэтому число открытых соединений сервера - это число незакрытых клиентских
+ * сокетов. После отмены не должно остаться ни их, ни потоков, выполняющих WebsiteChecker.
+ * Срок освобождения намного меньше таймаута чтения (10 с), так что проверки не могут
+ * завершиться сами по таймауту.
+ */
+class CheckCancellationTest {
+    private static final int CHECKS = 300;
+    private static final long CONNECT_WAIT_MILLIS = 10_000;
+    private static final long RELEASE_MILLIS = 2_000;
+
+    private StandInServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new StandInServer(new StandInServer.Config().hangRate(1));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void cancelledChecksReleaseThreadsAndSockets() throws Exception {
+        List<CompletableFuture<WebsiteChecker.CheckResult>> checks = new ArrayList<>();
+        for (int i = 0; i < CHECKS; i++) {
+            checks.add(WebsiteChecker.checkWebsiteAsync(server.url(i)));
+        }
+        awaitOpenConnections(CHECKS);
+
+        for (CompletableFuture<WebsiteChecker.CheckResult> check : checks) {
+            assertTrue(check.cancel(true), "check finished before cancellation");
+        }
+        assertReleased();
+    }
+
+    @Test
+    void cancelledCachedChecksReleaseThreadsAndSockets() throws Exception {
+        CachingWebsiteChecker cache = new CachingWebsiteChecker();
+        // Два ожидающих на каждый URL: проверку прерывает только отмена последнего из них
+        List<CompletableFuture<WebsiteChecker.CheckResult>> first = new ArrayList<>();
+        List<CompletableFuture<WebsiteChecker.CheckResult>> second = new ArrayList<>();
+        for (int i = 0; i < CHECKS; i++) {
+            first.add(cache.checkWebsiteAsync(server.url(i)));
+            second.add(cache.checkWebsiteAsync(server.url(i)));
+        }
+        awaitOpenConnections(CHECKS);
+
+        first.forEach(check -> check.cancel(true));
+        Thread.sleep(200);
+        assertEquals(CHECKS, server.getOpenConnections(), "check aborted while another waiter remained");
+
+        second.forEach(check -> check.cancel(true));
+        assertReleased();
+    }
+
+    private void awaitOpenConnections(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + CONNECT_WAIT_MILLIS;
+        while (server.getOpenConnections() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("only " + server.getOpenConnections() + " of " + expected + " checks connected");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertReleased() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + RELEASE_MILLIS;
+        while ((server.getOpenConnections() > 0 || checkThreads() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getOpenConnections(), "client sockets left open");
+        assertEquals(0, checkThreads(), "threads still running WebsiteChecker");
+    }
+
+    /**
+     * Потоки, в стеке которых есть проверка WebsiteChecker; простаивающие потоки пула не учитываются.
+     * Виртуальные потоки (JDK 21+) сюда не попадают - там утечку показывают открытые сокеты.
+     */
+    private static long checkThreads() {
+        String checker = WebsiteChecker.class.getName();
+        return Thread.getAllStackTraces().values().stream()
+            .filter(stack -> {
+                for (StackTraceElement frame : stack) {
+                    if (frame.getClassName().equals(checker)) {
+                        return true;
+                    }
+                }
+                return false;
+            })
+            .count();
+    }
+}
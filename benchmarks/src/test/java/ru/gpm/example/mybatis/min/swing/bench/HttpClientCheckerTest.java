@@ -0,0 +1,56 @@
+package ru.gpm.example.mybatis.min.swing.bench;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.gpm.example.mybatis.min.swing.HttpClientChecker;
+import ru.gpm.example.mybatis.min.swing.ProbeMode;
+import ru.gpm.example.mybatis.min.swing.WebsiteChecker;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Повторные проверки одного хоста через HttpClientChecker переиспользуют соединение:
+ * сервер с keep-alive принимает одно соединение на все проверки.
+ */
+class HttpClientCheckerTest {
+    private static final int CHECKS = 20;
+
+    private StandInServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new StandInServer(new StandInServer.Config().keepAlive(true));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void repeatedGetChecksReuseConnection() {
+        HttpClientChecker checker = new HttpClientChecker();
+        for (int i = 0; i < CHECKS; i++) {
+            assertAvailable(checker.check(server.url(i)));
+            assertAvailable(checker.checkAsync(server.url(i)).join());
+        }
+        assertEquals(1, server.getAcceptedConnections());
+    }
+
+    @Test
+    void repeatedHeadChecksReuseConnection() {
+        HttpClientChecker checker = new HttpClientChecker(ForkJoinPool.commonPool(), ProbeMode.HEAD_FIRST);
+        for (int i = 0; i < CHECKS; i++) {
+            assertAvailable(checker.check(server.url(i)));
+        }
+        assertEquals(1, server.getAcceptedConnections());
+    }
+
+    private static void assertAvailable(WebsiteChecker.CheckResult result) {
+        assertTrue(result.isAvailable(), result.getOutcome() + ": " + result.getMessage());
+    }
+}
@@ -0,0 +1,241 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Таймауты подключения и чтения, подстраиваемые под наблюдаемую задержку хоста.
+ * <p>
+ * Для каждого хоста ведется сглаженная оценка задержки и ее разброса, как при расчете
+ * RTO в TCP: timeout = srtt + 4 * rttvar, с нижней и верхней границами. Подключение
+ * оценивается по времени TCP соединения, чтение - по времени TLS рукопожатия и ожидания
+ * заголовков. После таймаута таймаут соответствующей фазы удваивается, поэтому медленный,
+ * но работающий хост не отсекается повторно. Для хоста без измерений используются верхние границы.
+ * <p>
+ * Подключение, взятое из пула keep-alive, занимает микросекунды и ничего не говорит о задержке
+ * установки соединения, поэтому такие измерения (короче {@value #REUSED_CONNECT_NANOS} нс) в оценку
+ * не попадают. Нижняя граница таймаута подключения - секунда: одна потеря SYN уже стоит
+ * повторной передачи через секунду, и более короткий таймаут отсекал бы работающие хосты.
+ */
+public class AdaptiveTimeouts {
+    public static final int DEFAULT_CONNECT_FLOOR_MS = 1000;
+    public static final int DEFAULT_READ_FLOOR_MS = 1000;
+    public static final int DEFAULT_MAX_HOSTS = 10_000;
+
+    // Подключения быстрее этого взяты из пула keep-alive, а не установлены заново
+    static final long REUSED_CONNECT_NANOS = 100_000;
+
+    /**
+     * Оценка задержки одной фазы, нс
+     */
+    private static final class Estimate {
+        double smoothed = -1;
+        double variance;
+
+        void add(long sampleNanos) {
+            if (smoothed < 0) {
+                smoothed = sampleNanos;
+                variance = sampleNanos / 2.0;
+            } else {
+                variance = 0.75 * variance + 0.25 * Math.abs(smoothed - sampleNanos);
+                smoothed = 0.875 * smoothed + 0.125 * sampleNanos;
+            }
+        }
+
+        /**
+         * После таймаута оценка поднимается так, чтобы следующий таймаут был не меньше удвоенного
+         */
+        void backOff(int floorMillis, int capMillis) {
+            if (smoothed >= 0) {
+                long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis(floorMillis, capMillis));
+                smoothed = Math.min(TimeUnit.MILLISECONDS.toNanos(capMillis), Math.max(smoothed, 2.0 * timeoutNanos));
+            }
+        }
+
+        int timeoutMillis(int floorMillis, int capMillis) {
+            if (smoothed < 0) {
+                return capMillis;
+            }
+            long millis = (long) ((smoothed + 4 * variance) / 1_000_000.0);
+            return (int) Math.max(floorMillis, Math.min(capMillis, millis));
+        }
+    }
+
+    /**
+     * Оценки одного хоста; обновления редки и коротки, поэтому используется монитор объекта
+     */
+    private static final class HostEstimate {
+        final Estimate connect = new Estimate();
+        final Estimate read = new Estimate();
+    }
+
+    private static class SharedHolder {
+        private static final AdaptiveTimeouts INSTANCE = new AdaptiveTimeouts();
+    }
+
+    private final int connectFloorMillis;
+    private final int connectCapMillis;
+    private final int readFloorMillis;
+    private final int readCapMillis;
+    private final int maxHosts;
+    private final ConcurrentHashMap<String, HostEstimate> hosts = new ConcurrentHashMap<>();
+
+    public AdaptiveTimeouts() {
+        this(DEFAULT_CONNECT_FLOOR_MS, WebsiteChecker.CONNECT_TIMEOUT_MS,
+            DEFAULT_READ_FLOOR_MS, WebsiteChecker.READ_TIMEOUT_MS, DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * @param connectFloorMillis минимальный таймаут подключения
+     * @param connectCapMillis максимальный таймаут подключения, он же таймаут для неизвестного хоста
+     * @param readFloorMillis минимальный таймаут чтения
+     * @param readCapMillis максимальный таймаут чтения, он же таймаут для неизвестного хоста
+     * @param maxHosts сколько хостов помнить; при переполнении оценки сбрасываются
+     */
+    public AdaptiveTimeouts(int connectFloorMillis, int connectCapMillis, int readFloorMillis, int readCapMillis,
+                            int maxHosts) {
+        if (connectFloorMillis < 1 || connectFloorMillis > connectCapMillis) {
+            throw new IllegalArgumentException("connect timeout bounds out of range: "
+                + connectFloorMillis + ".." + connectCapMillis);
+        }
+        if (readFloorMillis < 1 || readFloorMillis > readCapMillis) {
+            throw new IllegalArgumentException("read timeout bounds out of range: "
+                + readFloorMillis + ".." + readCapMillis);
+        }
+        if (maxHosts < 1) {
+            throw new IllegalArgumentException("maxHosts must be positive: " + maxHosts);
+        }
+        this.connectFloorMillis = connectFloorMillis;
+        this.connectCapMillis = connectCapMillis;
+        this.readFloorMillis = readFloorMillis;
+        this.readCapMillis = readCapMillis;
+        this.maxHosts = maxHosts;
+    }
+
+    /**
+     * Общая политика для асинхронных проверок приложения
+     */
+    public static AdaptiveTimeouts shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Проверяет сайт с таймаутами по оценке его хоста и учитывает результат в оценке
+     */
+    public WebsiteChecker.CheckResult check(String urlString, ProbeMode probeMode) {
+        return check(urlString, probeMode, null);
+    }
+
+    /**
+     * То же с проверкой содержимого ответа
+     * @param contentCheck проверка содержимого или null
+     */
+    public WebsiteChecker.CheckResult check(String urlString, ProbeMode probeMode, ContentCheck contentCheck) {
+        String host = HostLimiter.hostKey(urlString);
+        WebsiteChecker.CheckResult result = WebsiteChecker.checkWebsite(urlString, probeMode, contentCheck,
+            connectTimeoutMillis(host), readTimeoutMillis(host));
+        record(host, result);
+        return result;
+    }
+
+    /**
+     * Прерываемая асинхронная проверка с таймаутами по оценке хоста; результат учитывается в оценке
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> checkAsync(String urlString, ProbeMode probeMode) {
+        return checkAsync(urlString, probeMode, null);
+    }
+
+    /**
+     * То же с проверкой содержимого ответа
+     * @param contentCheck проверка содержимого или null
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> checkAsync(String urlString, ProbeMode probeMode,
+                                                                    ContentCheck contentCheck) {
+        return WebsiteChecker.checkWebsiteAsync(urlString, probeMode, contentCheck,
+            WebsiteChecker.ProgressListener.NONE, this);
+    }
+
+    /**
+     * Проверяет TCP порт с таймаутом подключения по оценке хоста и учитывает результат в оценке
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> probe(TcpProbe tcpProbe, String urlString) {
+        String host = HostLimiter.hostKey(urlString);
+        return tcpProbe.probe(urlString, connectTimeoutMillis(host)).whenComplete((result, error) -> {
+            if (result != null) {
+                record(host, result);
+            }
+        });
+    }
+
+    public int connectTimeoutMillis(String host) {
+        HostEstimate estimate = hosts.get(host);
+        if (estimate == null) {
+            return connectCapMillis;
+        }
+        synchronized (estimate) {
+            return estimate.connect.timeoutMillis(connectFloorMillis, connectCapMillis);
+        }
+    }
+
+    public int readTimeoutMillis(String host) {
+        HostEstimate estimate = hosts.get(host);
+        if (estimate == null) {
+            return readCapMillis;
+        }
+        synchronized (estimate) {
+            return estimate.read.timeoutMillis(readFloorMillis, readCapMillis);
+        }
+    }
+
+    /**
+     * Наибольшая длительность проверки хоста по текущим таймаутам, без учета разрешения имени
+     */
+    public int totalTimeoutMillis(String host) {
+        return connectTimeoutMillis(host) + readTimeoutMillis(host);
+    }
+
+    /**
+     * Учитывает результат проверки хоста
+     * @param host ключ хоста, см. HostLimiter.hostKey
+     */
+    public void record(String host, WebsiteChecker.CheckResult result) {
+        long connect = result.getConnectNanos();
+        long tls = result.getTlsNanos();
+        long ttfb = result.getTtfbNanos();
+        boolean timedOut = result.getOutcome() == WebsiteChecker.Outcome.TIMEOUT;
+        if (connect == WebsiteChecker.NOT_MEASURED && ttfb == WebsiteChecker.NOT_MEASURED && !timedOut) {
+            // Ни одна фаза не измерена (например, неизвестный хост) - оценивать нечего
+            return;
+        }
+        HostEstimate estimate = hosts.get(host);
+        if (estimate == null) {
+            if (hosts.size() >= maxHosts) {
+                hosts.clear();
+            }
+            estimate = hosts.computeIfAbsent(host, key -> new HostEstimate());
+        }
+        synchronized (estimate) {
+            if (connect != WebsiteChecker.NOT_MEASURED && connect >= REUSED_CONNECT_NANOS) {
+                estimate.connect.add(connect);
+            }
+            long read = ttfb == WebsiteChecker.NOT_MEASURED ? WebsiteChecker.NOT_MEASURED
+                : ttfb + (tls == WebsiteChecker.NOT_MEASURED ? 0 : tls);
+            if (read != WebsiteChecker.NOT_MEASURED) {
+                estimate.read.add(read);
+            }
+            if (timedOut) {
+                // Без измеренного подключения истек таймаут подключения, иначе - чтения
+                if (connect == WebsiteChecker.NOT_MEASURED) {
+                    estimate.connect.backOff(connectFloorMillis, connectCapMillis);
+                } else {
+                    estimate.read.backOff(readFloorMillis, readCapMillis);
+                }
+            }
+        }
+    }
+
+    public int getHostCount() {
+        return hosts.size();
+    }
+}
@@ -0,0 +1,142 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.Arrays;
+
+/**
+ * Общий источник кадров анимации для всех индикаторов прогресса.
+ * <p>
+ * Один Swing Timer (~60 кадров в секунду) вызывает всех подписчиков в одном событии EDT,
+ * поэтому их запросы repaint объединяются RepaintManager в один проход отрисовки.
+ * Таймер останавливается, когда ни один компонент подписчиков не отображается,
+ * и запускается снова, когда компонент появляется на экране.
+ * Все методы вызываются из EDT.
+ */
+public final class AnimationClock {
+    public static final int FRAME_MILLIS = 16;
+
+    /**
+     * Подписчик на кадры анимации
+     */
+    @FunctionalInterface
+    public interface FrameListener {
+        /**
+         * Вызывается из EDT на каждом кадре, пока компонент подписчика отображается
+         * @param frameNanos время кадра по System.nanoTime(), общее для всех подписчиков
+         */
+        void onFrame(long frameNanos);
+    }
+
+    private static final class Subscription {
+        final Component component;
+        final FrameListener listener;
+        final HierarchyListener showingListener;
+
+        Subscription(Component component, FrameListener listener, HierarchyListener showingListener) {
+            this.component = component;
+            this.listener = listener;
+            this.showingListener = showingListener;
+        }
+    }
+
+    private static AnimationClock instance;
+
+    private final Timer timer;
+    // Копируется при изменении, чтобы отписка во время кадра не мешала обходу
+    private Subscription[] subscriptions = new Subscription[0];
+    // Время предыдущего кадра или 0 после запуска таймера
+    private long lastFrameNanos;
+
+    private AnimationClock() {
+        timer = new Timer(FRAME_MILLIS, e -> tick());
+        timer.setCoalesce(true);
+    }
+
+    public static AnimationClock getInstance() {
+        if (instance == null) {
+            instance = new AnimationClock();
+        }
+        return instance;
+    }
+
+    /**
+     * Подписывает слушателя на кадры, пока компонент отображается
+     * @param component компонент, видимость которого определяет, нужны ли кадры
+     * @param listener слушатель кадров
+     */
+    public void register(Component component, FrameListener listener) {
+        HierarchyListener showingListener = e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                updateRunning();
+            }
+        };
+        component.addHierarchyListener(showingListener);
+        Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[subscriptions.length] = new Subscription(component, listener, showingListener);
+        subscriptions = updated;
+        updateRunning();
+    }
+
+    /**
+     * Отписывает слушателя; повторный вызов безопасен
+     */
+    public void unregister(FrameListener listener) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i].listener == listener) {
+                subscriptions[i].component.removeHierarchyListener(subscriptions[i].showingListener);
+                Subscription[] updated = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, updated, 0, i);
+                System.arraycopy(subscriptions, i + 1, updated, i, subscriptions.length - i - 1);
+                subscriptions = updated;
+                break;
+            }
+        }
+        updateRunning();
+    }
+
+    /**
+     * Работает ли таймер кадров
+     */
+    public boolean isRunning() {
+        return timer.isRunning();
+    }
+
+    private void tick() {
+        long frameNanos = System.nanoTime();
+        if (lastFrameNanos != 0) {
+            EdtWatchdog.frameInterval(frameNanos - lastFrameNanos);
+        }
+        lastFrameNanos = frameNanos;
+        boolean anyShowing = false;
+        Subscription[] current = subscriptions;
+        for (Subscription subscription : current) {
+            if (subscription.component.isShowing()) {
+                anyShowing = true;
+                subscription.listener.onFrame(frameNanos);
+            }
+        }
+        if (!anyShowing) {
+            timer.stop();
+            lastFrameNanos = 0;
+        }
+    }
+
+    private void updateRunning() {
+        boolean anyShowing = false;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.component.isShowing()) {
+                anyShowing = true;
+                break;
+            }
+        }
+        if (anyShowing && !timer.isRunning()) {
+            lastFrameNanos = 0;
+            timer.start();
+        } else if (!anyShowing && timer.isRunning()) {
+            timer.stop();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Пакетная проверка сайтов без графического интерфейса.
+ * <p>
+ * URL читаются построчно из файла или stdin по мере освобождения мест для проверок,
+ * а результаты выводятся в stdout строками JSON Lines или CSV в порядке завершения.
+ * Результаты не накапливаются, поэтому память не зависит от размера входа.
+ * Таймауты подстраиваются под задержку каждого хоста (AdaptiveTimeouts), если не указан --fixed-timeouts.
+ * С --hedge и --retries проверки выполняются через HedgedChecker.
+ * С --expect, --expect-regex и --max-body проверяется содержимое ответа (ContentCheck).
+ * Результаты дописываются в журнал истории каталога --history или, без него, каталога из свойства
+ * CheckHistory.DIRECTORY_PROPERTY; гистограммы задержек по URL не ведутся.
+ * Класс и его зависимости не используют AWT и Swing.
+ * <p>
+ * Код завершения: 0 - все сайты доступны, 1 - есть недоступные, 2 - ошибка аргументов или ввода-вывода.
+ */
+public class BatchCheckApplication {
+    private static final String USAGE =
+        "Usage: BatchCheckApplication [--format jsonl|csv] [--concurrency N] [--probe get|head|tcp]"
+            + " [--per-host N] [--rate R] [--fixed-timeouts] [--hedge] [--retries N]"
+            + " [--expect TEXT | --expect-regex REGEX] [--max-body BYTES] [--history DIR] [--metrics] [FILE|-]";
+    private static final String CSV_HEADER =
+        "url,outcome,status,available,total_ms,dns_ms,connect_ms,tls_ms,ttfb_ms,message";
+
+    private final Writer out;
+    private final boolean csv;
+
+    BatchCheckApplication(Writer out, boolean csv) {
+        this.out = out;
+        this.csv = csv;
+    }
+
+    public static void main(String[] args) {
+        String format = "jsonl";
+        int concurrency = BulkWebsiteChecker.DEFAULT_MAX_IN_FLIGHT;
+        ProbeMode probeMode = ProbeMode.GET;
+        int perHost = 0;
+        double rate = 0;
+        boolean adaptiveTimeouts = true;
+        boolean hedge = false;
+        int retries = 0;
+        boolean metrics = false;
+        String expectKeyword = null;
+        String expectRegex = null;
+        long maxBody = 0;
+        ContentCheck contentCheck = null;
+        String historyDirectory = null;
+        String input = "-";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = args[++i].toLowerCase(Locale.ROOT);
+                        if (!format.equals("jsonl") && !format.equals("csv")) {
+                            throw new IllegalArgumentException("Unknown format: " + format);
+                        }
+                        break;
+                    case "--concurrency":
+                        concurrency = Integer.parseInt(args[++i]);
+                        break;
+                    case "--probe":
+                        probeMode = parseProbeMode(args[++i]);
+                        break;
+                    case "--per-host":
+                        perHost = Integer.parseInt(args[++i]);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(args[++i]);
+                        break;
+                    case "--fixed-timeouts":
+                        adaptiveTimeouts = false;
+                        break;
+                    case "--hedge":
+                        hedge = true;
+                        break;
+                    case "--retries":
+                        retries = Integer.parseInt(args[++i]);
+                        if (retries < 0) {
+                            throw new IllegalArgumentException("--retries must be >= 0: " + retries);
+                        }
+                        break;
+                    case "--expect":
+                        expectKeyword = args[++i];
+                        break;
+                    case "--expect-regex":
+                        expectRegex = args[++i];
+                        break;
+                    case "--max-body":
+                        maxBody = Long.parseLong(args[++i]);
+                        break;
+                    case "--history":
+                        historyDirectory = args[++i];
+                        break;
+                    case "--metrics":
+                        metrics = true;
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return;
+                    default:
+                        input = args[i];
+                        break;
+                }
+            }
+            contentCheck = contentCheck(expectKeyword, expectRegex, maxBody);
+            if (contentCheck != null && probeMode == ProbeMode.TCP_CONNECT) {
+                throw new IllegalArgumentException("Content checks need an HTTP probe, not tcp");
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage() != null ? e.getMessage() : "Missing option value");
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ProbeMode finalProbeMode = probeMode;
+        ContentCheck finalContentCheck = contentCheck;
+        HostLimiter hostLimiter = null;
+        if (perHost > 0 || rate > 0) {
+            int maxPerHost = perHost > 0 ? perHost : concurrency;
+            hostLimiter = new HostLimiter(maxPerHost, rate, maxPerHost);
+        }
+        AdaptiveTimeouts timeouts = adaptiveTimeouts ? new AdaptiveTimeouts() : null;
+        BulkWebsiteChecker checker;
+        if (probeMode == ProbeMode.TCP_CONNECT || hedge || retries > 0) {
+            Function<String, CompletableFuture<WebsiteChecker.CheckResult>> attempt;
+            if (probeMode == ProbeMode.TCP_CONNECT) {
+                // Подключения обслуживает один поток TcpProbe, потоки на проверки не нужны
+                TcpProbe tcpProbe = TcpProbe.shared();
+                attempt = timeouts != null ? url -> timeouts.probe(tcpProbe, url) : tcpProbe::probe;
+            } else {
+                // Проигравшую попытку нужно прервать, поэтому проверка асинхронная
+                attempt = timeouts != null ? url -> timeouts.checkAsync(url, finalProbeMode, finalContentCheck)
+                    : url -> WebsiteChecker.checkWebsiteAsync(url, finalProbeMode, finalContentCheck,
+                        WebsiteChecker.ProgressListener.NONE, null);
+            }
+            if (hedge || retries > 0) {
+                HedgedChecker hedged = new HedgedChecker(attempt, new LatencyTracker(),
+                    hedge ? HedgedChecker.DEFAULT_HEDGE_PERCENTILE : 0, HedgedChecker.DEFAULT_MAX_HEDGE_RATIO,
+                    retries, HedgedChecker.DEFAULT_BACKOFF_BASE_MILLIS, HedgedChecker.DEFAULT_BACKOFF_MAX_MILLIS,
+                    hostLimiter);
+                attempt = hedged::check;
+            }
+            checker = BulkWebsiteChecker.nonBlocking(concurrency, attempt, hostLimiter);
+        } else {
+            checker = new BulkWebsiteChecker(concurrency,
+                timeouts != null ? url -> timeouts.check(url, finalProbeMode, finalContentCheck)
+                    : url -> WebsiteChecker.checkWebsite(url, finalProbeMode, finalContentCheck,
+                        WebsiteChecker.CONNECT_TIMEOUT_MS, WebsiteChecker.READ_TIMEOUT_MS),
+                hostLimiter);
+        }
+        ResultHistoryLog historyLog = null;
+        if (historyDirectory != null) {
+            try {
+                historyLog = new ResultHistoryLog(Paths.get(historyDirectory));
+            } catch (IOException e) {
+                System.err.println("Cannot open history: " + e.getMessage());
+                checker.close();
+                System.exit(2);
+            }
+        } else {
+            historyLog = CheckHistory.openLog(System.getProperty(CheckHistory.DIRECTORY_PROPERTY));
+        }
+        // Без гистограмм по URL: иначе память росла бы с числом строк входа
+        CheckHistory history = new CheckHistory(historyLog, null);
+        int status = run(input, format.equals("csv"), checker, history);
+        if (metrics) {
+            System.err.print(MetricsRegistry.shared().snapshot());
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Проверка содержимого по параметрам или null, если ни один не задан
+     */
+    private static ContentCheck contentCheck(String keyword, String regex, long maxBody) {
+        if (keyword != null && regex != null) {
+            throw new IllegalArgumentException("Use either --expect or --expect-regex");
+        }
+        ContentCheck check = null;
+        if (keyword != null) {
+            check = ContentCheck.keyword(keyword);
+        } else if (regex != null) {
+            check = ContentCheck.regex(regex);
+        }
+        if (maxBody != 0) {
+            check = check != null ? check.withMaxBodySize(maxBody) : ContentCheck.maxBodySize(maxBody);
+        }
+        return check;
+    }
+
+    private static ProbeMode parseProbeMode(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "get":
+                return ProbeMode.GET;
+            case "head":
+                return ProbeMode.HEAD_FIRST;
+            case "tcp":
+                return ProbeMode.TCP_CONNECT;
+            default:
+                throw new IllegalArgumentException("Unknown probe: " + value);
+        }
+    }
+
+    private static int run(String input, boolean csv, BulkWebsiteChecker checker, CheckHistory history) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        BatchCheckApplication application = new BatchCheckApplication(out, csv);
+        AtomicBoolean allAvailable = new AtomicBoolean(true);
+        try (BufferedReader reader = input.equals("-")
+                 ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                 : Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+             checker;
+             history) {
+            application.writeHeader();
+            checker.checkAll(urls(reader), (url, result) -> {
+                history.record(url, result);
+                if (!result.isAvailable()) {
+                    allAvailable.set(false);
+                }
+                application.write(url, result);
+            }).join();
+            out.flush();
+        } catch (IOException | UncheckedIOException | CompletionException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("Batch check failed: " + cause.getMessage());
+            return 2;
+        }
+        return allAvailable.get() ? 0 : 1;
+    }
+
+    /**
+     * Непустые строки входа, кроме комментариев (#); читаются лениво
+     */
+    static Iterable<String> urls(BufferedReader reader) {
+        Iterator<String> iterator = reader.lines()
+            .map(String::trim)
+            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+            .iterator();
+        return () -> iterator;
+    }
+
+    void writeHeader() throws IOException {
+        if (csv) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Выводит одну строку результата; вызывается из потоков проверки
+     */
+    synchronized void write(String url, WebsiteChecker.CheckResult result) {
+        StringBuilder line = new StringBuilder(256);
+        if (csv) {
+            appendCsv(line, url, result);
+        } else {
+            appendJson(line, url, result);
+        }
+        line.append('\n');
+        try {
+            out.write(line.toString());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void appendJson(StringBuilder line, String url, WebsiteChecker.CheckResult result) {
+        line.append("{\"url\":");
+        appendJsonString(line, url);
+        line.append(",\"outcome\":\"").append(result.getOutcome()).append('"');
+        line.append(",\"status\":").append(result.getStatusCode());
+        line.append(",\"available\":").append(result.isAvailable());
+        appendJsonMillis(line, "total_ms", result.getTotalNanos());
+        appendJsonMillis(line, "dns_ms", result.getDnsNanos());
+        appendJsonMillis(line, "connect_ms", result.getConnectNanos());
+        appendJsonMillis(line, "tls_ms", result.getTlsNanos());
+        appendJsonMillis(line, "ttfb_ms", result.getTtfbNanos());
+        line.append(",\"message\":");
+        appendJsonString(line, result.getMessage());
+        line.append('}');
+    }
+
+    private static void appendJsonMillis(StringBuilder line, String name, long nanos) {
+        line.append(",\"").append(name).append("\":");
+        if (nanos == WebsiteChecker.NOT_MEASURED) {
+            line.append("null");
+        } else {
+            appendMillis(line, nanos);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                    break;
+            }
+        }
+        line.append('"');
+    }
+
+    private static void appendCsv(StringBuilder line, String url, WebsiteChecker.CheckResult result) {
+        appendCsvField(line, url);
+        line.append(',').append(result.getOutcome());
+        line.append(',').append(result.getStatusCode());
+        line.append(',').append(result.isAvailable());
+        appendCsvMillis(line, result.getTotalNanos());
+        appendCsvMillis(line, result.getDnsNanos());
+        appendCsvMillis(line, result.getConnectNanos());
+        appendCsvMillis(line, result.getTlsNanos());
+        appendCsvMillis(line, result.getTtfbNanos());
+        line.append(',');
+        appendCsvField(line, result.getMessage());
+    }
+
+    private static void appendCsvMillis(StringBuilder line, long nanos) {
+        line.append(',');
+        if (nanos != WebsiteChecker.NOT_MEASURED) {
+            appendMillis(line, nanos);
+        }
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * Миллисекунды с тремя знаками после точки, независимо от локали
+     */
+    private static void appendMillis(StringBuilder line, long nanos) {
+        long micros = nanos / 1000;
+        line.append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            line.append('0');
+        }
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+}
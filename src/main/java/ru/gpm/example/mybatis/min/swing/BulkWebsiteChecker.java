@@ -0,0 +1,303 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Массовая проверка доступности сайтов с ограничением числа одновременных проверок.
+ * Результаты передаются слушателю по мере завершения каждой проверки.
+ * Необязательный HostLimiter дополнительно ограничивает нагрузку на каждый хост.
+ * <p>
+ * С HostLimiter место среди maxInFlight занимается только тогда, когда хост отпускает проверку,
+ * поэтому проверки, ждущие в очереди медленного или ограниченного по частоте хоста, не мешают
+ * остальным хостам. Число принятых проверок ограничено для каждого хоста отдельно:
+ * не больше {@value #QUEUE_FACTOR} * maxConcurrentPerHost ожидающих и выполняющихся. Подача ждет
+ * только тогда, когда заполнена очередь хоста очередного URL, а очередь одного ограниченного хоста
+ * не задерживает проверки остальных.
+ */
+public class BulkWebsiteChecker implements AutoCloseable {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    // Во сколько раз принятых проверок хоста может быть больше, чем выполняющихся, при заданном HostLimiter
+    public static final int QUEUE_FACTOR = 8;
+
+    private final Function<String, WebsiteChecker.CheckResult> checker;
+    // Неблокирующая проверка; если задана, checker и executor не используются
+    private final Function<String, CompletableFuture<WebsiteChecker.CheckResult>> asyncChecker;
+    private final HostLimiter hostLimiter;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    // Сколько принятых и не завершенных проверок может быть у одного хоста hostLimiter
+    private final int maxPendingPerHost;
+    // Проверки, отпущенные hostLimiter и ожидающие места среди maxInFlight
+    private final ConcurrentLinkedQueue<Runnable> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readyDrains = new AtomicInteger();
+    private final int maxInFlight;
+
+    public BulkWebsiteChecker() {
+        this(DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public BulkWebsiteChecker(int maxInFlight) {
+        this(maxInFlight, WebsiteChecker::checkWebsite);
+    }
+
+    /**
+     * @param maxInFlight максимальное число одновременно выполняющихся проверок
+     * @param checker функция синхронной проверки одного URL
+     */
+    public BulkWebsiteChecker(int maxInFlight, Function<String, WebsiteChecker.CheckResult> checker) {
+        this(maxInFlight, checker, null);
+    }
+
+    /**
+     * @param maxInFlight максимальное число одновременно выполняющихся проверок
+     * @param checker функция синхронной проверки одного URL
+     * @param hostLimiter ограничение нагрузки на хост или null; у хоста принимается не больше
+     *                    QUEUE_FACTOR * maxConcurrentPerHost проверок, включая ожидающие
+     */
+    public BulkWebsiteChecker(int maxInFlight, Function<String, WebsiteChecker.CheckResult> checker,
+                              HostLimiter hostLimiter) {
+        this(maxInFlight, checker, null, hostLimiter);
+    }
+
+    private BulkWebsiteChecker(int maxInFlight, Function<String, WebsiteChecker.CheckResult> checker,
+                               Function<String, CompletableFuture<WebsiteChecker.CheckResult>> asyncChecker,
+                               HostLimiter hostLimiter) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        this.checker = checker;
+        this.asyncChecker = asyncChecker;
+        this.hostLimiter = hostLimiter;
+        this.permits = new Semaphore(maxInFlight);
+        this.maxPendingPerHost = hostLimiter == null ? 0
+            : (int) Math.min(Integer.MAX_VALUE, (long) hostLimiter.getMaxConcurrentPerHost() * QUEUE_FACTOR);
+        this.executor = asyncChecker == null ? CheckExecutors.newCheckExecutor("bulk-check") : null;
+    }
+
+    /**
+     * Движок для неблокирующих проверок (например, TcpProbe): проверка не занимает поток,
+     * лимит maxInFlight ограничивает только число незавершенных проверок
+     * @param maxInFlight максимальное число выполняющихся и не завершенных проверок
+     * @param checker функция, запускающая проверку одного URL
+     * @param hostLimiter ограничение нагрузки на хост или null
+     */
+    public static BulkWebsiteChecker nonBlocking(int maxInFlight,
+                                                 Function<String, CompletableFuture<WebsiteChecker.CheckResult>> checker,
+                                                 HostLimiter hostLimiter) {
+        return new BulkWebsiteChecker(maxInFlight, null, checker, hostLimiter);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Текущее число выполняющихся проверок
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * Запускает проверки всех URL. Новые проверки не стартуют, пока число
+     * выполняющихся равно maxInFlight, поэтому источник URL читается лениво
+     * (с HostLimiter - пока не заполнена очередь хоста очередного URL).
+     * @param urls URL для проверки
+     * @param onResult слушатель, вызывается из рабочего потока по завершении каждой проверки
+     * @return CompletableFuture, завершающийся после обработки всех результатов
+     */
+    public CompletableFuture<Void> checkAll(Iterable<String> urls,
+                                            BiConsumer<String, WebsiteChecker.CheckResult> onResult) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        // Единица удерживается подающим потоком до конца обхода источника
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+        Thread feeder = new Thread(() -> {
+            try {
+                for (String url : urls) {
+                    pending.incrementAndGet();
+                    submit(url).whenComplete((result, error) -> {
+                        try {
+                            if (error != null) {
+                                firstError.compareAndSet(null, error);
+                            } else {
+                                onResult.accept(url, result);
+                            }
+                        } catch (Throwable t) {
+                            firstError.compareAndSet(null, t);
+                        } finally {
+                            finishOne(pending, firstError, done);
+                        }
+                    });
+                }
+            } catch (Throwable t) {
+                firstError.compareAndSet(null, t);
+            } finally {
+                finishOne(pending, firstError, done);
+            }
+        }, "bulk-check-feeder");
+        feeder.setDaemon(true);
+        feeder.start();
+        return done;
+    }
+
+    private static void finishOne(AtomicInteger pending, AtomicReference<Throwable> firstError,
+                                  CompletableFuture<Void> done) {
+        if (pending.decrementAndGet() == 0) {
+            Throwable error = firstError.get();
+            if (error != null) {
+                done.completeExceptionally(error);
+            } else {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Запускает одну проверку, ожидая свободного места, если лимит исчерпан
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> submit(String url) throws InterruptedException {
+        if (hostLimiter != null) {
+            // Ожидание места в очереди хоста учитывает HostLimiter
+            return hostLimiter.submit(url, () -> startWhenPermitted(url), maxPendingPerHost);
+        }
+        if (!permits.tryAcquire()) {
+            // Ожидание места учитывается в глубине очереди
+            CheckMetrics.QUEUED.increment();
+            try {
+                permits.acquire();
+            } finally {
+                CheckMetrics.QUEUED.decrement();
+            }
+        }
+        return execute(url);
+    }
+
+    /**
+     * Запускает одну проверку без ожидания
+     * @return CompletableFuture с результатом или null, если лимит одновременных проверок
+     *         (с HostLimiter - очередь хоста) исчерпан
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> trySubmit(String url) {
+        if (hostLimiter != null) {
+            return hostLimiter.trySubmit(url, () -> startWhenPermitted(url), maxPendingPerHost);
+        }
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        return execute(url);
+    }
+
+    /**
+     * Запускает проверку, отпущенную hostLimiter: сразу, если есть место среди maxInFlight,
+     * иначе после завершения одной из выполняющихся проверок
+     */
+    private CompletableFuture<WebsiteChecker.CheckResult> startWhenPermitted(String url) {
+        if (permits.tryAcquire()) {
+            return execute(url);
+        }
+        CompletableFuture<WebsiteChecker.CheckResult> future = new CompletableFuture<>();
+        CheckMetrics.QUEUED.increment();
+        ready.add(() -> {
+            CheckMetrics.QUEUED.decrement();
+            relay(() -> execute(url), future);
+        });
+        // Место могло освободиться до постановки в очередь
+        startReady();
+        return future;
+    }
+
+    private static <T> void relay(Supplier<CompletableFuture<T>> task, CompletableFuture<T> target) {
+        try {
+            task.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(error);
+                } else {
+                    target.complete(value);
+                }
+            });
+        } catch (Throwable t) {
+            target.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Запускает ожидающие места проверки, пока есть свободные разрешения.
+     * Обходит очередь один поток за раз: проверка, завершившаяся сразу при запуске,
+     * не уходит в рекурсию, а добавляет проход уже работающему циклу.
+     */
+    private void startReady() {
+        if (readyDrains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!ready.isEmpty() && permits.tryAcquire()) {
+                Runnable next = ready.poll();
+                if (next == null) {
+                    permits.release();
+                    break;
+                }
+                next.run();
+            }
+            missed = readyDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Освобождает место выполняющейся проверки и отдает его ожидающей
+     */
+    private void release() {
+        permits.release();
+        if (hostLimiter != null) {
+            startReady();
+        }
+    }
+
+    private CompletableFuture<WebsiteChecker.CheckResult> execute(String url) {
+        if (asyncChecker != null) {
+            CompletableFuture<WebsiteChecker.CheckResult> future;
+            try {
+                future = asyncChecker.apply(url);
+            } catch (RuntimeException e) {
+                release();
+                throw e;
+            }
+            return future.whenComplete((result, error) -> release());
+        }
+        CompletableFuture<WebsiteChecker.CheckResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(checker.apply(url));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    // Разрешение освобождается только после фактического завершения проверки
+                    release();
+                }
+            });
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Кэширующий слой перед асинхронной проверкой сайтов.
+ * Одновременные запросы одного и того же URL используют одну выполняющуюся проверку,
+ * а завершенные результаты хранятся в ограниченном LRU-кэше с временем жизни.
+ * Фазы выполняющейся проверки передаются всем присоединившимся к ней получателям.
+ * Проверка прерывается, когда ее результат отменили все ожидающие.
+ * В CheckHistory передаются только результаты фактических проверок: результат из кэша
+ * или присоединение к идущей проверке повторно не учитываются.
+ */
+public class CachingWebsiteChecker {
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static class CachedResult {
+        final WebsiteChecker.CheckResult result;
+        final long expiresAt;
+
+        CachedResult(WebsiteChecker.CheckResult result, long expiresAt) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Выполняющаяся проверка, ее ожидающие и рассылка ее фаз
+     */
+    private static class Flight implements WebsiteChecker.ProgressListener {
+        final CompletableFuture<WebsiteChecker.CheckResult> future = new CompletableFuture<>();
+        final List<WebsiteChecker.ProgressListener> listeners = new CopyOnWriteArrayList<>();
+        // Создатель проверки - первый ожидающий
+        final AtomicInteger waiters = new AtomicInteger(1);
+        volatile CompletableFuture<WebsiteChecker.CheckResult> source;
+        volatile WebsiteChecker.Phase phase;
+
+        @Override
+        public void onPhase(WebsiteChecker.Phase phase) {
+            this.phase = phase;
+            for (WebsiteChecker.ProgressListener listener : listeners) {
+                listener.onPhase(phase);
+            }
+        }
+
+        /**
+         * Добавляет ожидающего, если проверку еще не отменили все прежние ожидающие
+         */
+        boolean tryJoin() {
+            while (true) {
+                int current = waiters.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (waiters.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Подписывает получателя и сообщает ему текущую фазу; фаза может прийти повторно
+         */
+        void subscribe(WebsiteChecker.ProgressListener listener) {
+            if (listener == WebsiteChecker.ProgressListener.NONE) {
+                return;
+            }
+            listeners.add(listener);
+            WebsiteChecker.Phase current = phase;
+            if (current != null) {
+                listener.onPhase(current);
+            }
+        }
+    }
+
+    private static class SharedHolder {
+        private static final CachingWebsiteChecker INSTANCE = new CachingWebsiteChecker();
+    }
+
+    private final BiFunction<String, WebsiteChecker.ProgressListener,
+        CompletableFuture<WebsiteChecker.CheckResult>> loader;
+    private final long ttlNanos;
+    // Куда передавать результаты фактических проверок; null - никуда
+    private final CheckHistory history;
+    private final ConcurrentHashMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder joins = new LongAdder();
+
+    public CachingWebsiteChecker() {
+        this((url, progress) -> WebsiteChecker.checkWebsiteAsync(url, progress), DEFAULT_TTL_MILLIS,
+            DEFAULT_MAX_ENTRIES, CheckHistory.shared());
+    }
+
+    /**
+     * @param loader функция, запускающая фактическую проверку; фазы такой проверки не сообщаются
+     * @param ttlMillis время жизни результата в кэше
+     * @param maxEntries максимальное число результатов в кэше
+     */
+    public CachingWebsiteChecker(Function<String, CompletableFuture<WebsiteChecker.CheckResult>> loader,
+                                 long ttlMillis, int maxEntries) {
+        this((url, progress) -> loader.apply(url), ttlMillis, maxEntries);
+    }
+
+    /**
+     * @param loader функция, запускающая фактическую проверку и сообщающая о ее фазах
+     * @param ttlMillis время жизни результата в кэше
+     * @param maxEntries максимальное число результатов в кэше
+     */
+    public CachingWebsiteChecker(BiFunction<String, WebsiteChecker.ProgressListener,
+                                     CompletableFuture<WebsiteChecker.CheckResult>> loader,
+                                 long ttlMillis, int maxEntries) {
+        this(loader, ttlMillis, maxEntries, null);
+    }
+
+    /**
+     * @param loader функция, запускающая фактическую проверку и сообщающая о ее фазах
+     * @param ttlMillis время жизни результата в кэше
+     * @param maxEntries максимальное число результатов в кэше
+     * @param history куда передавать результаты фактических проверок или null
+     */
+    public CachingWebsiteChecker(BiFunction<String, WebsiteChecker.ProgressListener,
+                                     CompletableFuture<WebsiteChecker.CheckResult>> loader,
+                                 long ttlMillis, int maxEntries, CheckHistory history) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.loader = loader;
+        this.history = history;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.cache = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Общий экземпляр для окон приложения и планировщика
+     */
+    public static CachingWebsiteChecker shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Возвращает свежий результат из кэша, присоединяется к уже идущей проверке
+     * или запускает новую.
+     * @param urlString URL для проверки
+     * @return CompletableFuture с результатом; его отмена не затрагивает других ожидающих,
+     *         а отмена всеми ожидающими прерывает проверку
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> checkWebsiteAsync(String urlString) {
+        return checkWebsiteAsync(urlString, WebsiteChecker.ProgressListener.NONE);
+    }
+
+    /**
+     * То же, что checkWebsiteAsync(String), с получением фаз проверки.
+     * Для результата из кэша сразу сообщается фаза DONE.
+     * @param urlString URL для проверки
+     * @param progress получатель фаз; вызывается в потоке проверки
+     * @return CompletableFuture с результатом; его отмена не затрагивает других ожидающих,
+     *         а отмена всеми ожидающими прерывает проверку
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> checkWebsiteAsync(String urlString,
+                                                                          WebsiteChecker.ProgressListener progress) {
+        String key = normalizeKey(urlString);
+        WebsiteChecker.CheckResult cached = getFresh(key);
+        if (cached != null) {
+            hits.increment();
+            progress.onPhase(WebsiteChecker.Phase.DONE);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        Flight created = new Flight();
+        created.subscribe(progress);
+        while (true) {
+            Flight existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                break;
+            }
+            if (existing.tryJoin()) {
+                joins.increment();
+                existing.subscribe(progress);
+                return waiterFuture(key, existing, progress);
+            }
+            // Проверку отменили все ожидающие - она уходит из таблицы, запускаем новую
+            inFlight.remove(key, existing);
+        }
+
+        misses.increment();
+        try {
+            created.source = loader.apply(urlString, created);
+            created.source.whenComplete((result, error) -> {
+                if (error == null) {
+                    synchronized (cache) {
+                        cache.put(key, new CachedResult(result, System.nanoTime() + ttlNanos));
+                    }
+                    if (history != null) {
+                        history.record(urlString, result);
+                    }
+                }
+                // Результат уже в кэше, поэтому новые вызовы не запустят повторную проверку
+                inFlight.remove(key, created);
+                if (error == null) {
+                    created.future.complete(result);
+                } else {
+                    created.future.completeExceptionally(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.future.completeExceptionally(e);
+        }
+        return waiterFuture(key, created, progress);
+    }
+
+    /**
+     * Результат для одного ожидающего. Его отмена отписывает получателя фаз,
+     * а отмена последним ожидающим прерывает саму проверку.
+     */
+    private CompletableFuture<WebsiteChecker.CheckResult> waiterFuture(String key, Flight flight,
+                                                                       WebsiteChecker.ProgressListener progress) {
+        CompletableFuture<WebsiteChecker.CheckResult> waiter = flight.future.copy();
+        waiter.whenComplete((result, error) -> {
+            if (!waiter.isCancelled()) {
+                return;
+            }
+            flight.listeners.remove(progress);
+            if (flight.waiters.decrementAndGet() == 0) {
+                inFlight.remove(key, flight);
+                CompletableFuture<WebsiteChecker.CheckResult> source = flight.source;
+                if (source != null) {
+                    source.cancel(true);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    private WebsiteChecker.CheckResult getFresh(String key) {
+        synchronized (cache) {
+            CachedResult entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.result;
+        }
+    }
+
+    /**
+     * Приводит URL к единому виду: протокол по умолчанию, регистр схемы и хоста, пустой путь
+     */
+    static String normalizeKey(String urlString) {
+        String normalized = WebsiteChecker.normalizeUrl(urlString.trim());
+        try {
+            URI uri = URI.create(normalized);
+            if (uri.getHost() == null) {
+                return normalized;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+            StringBuilder key = new StringBuilder(normalized.length());
+            key.append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                key.append(uri.getRawUserInfo()).append('@');
+            }
+            key.append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (port != -1) {
+                key.append(':').append(port);
+            }
+            String path = uri.getRawPath();
+            key.append(path == null || path.isEmpty() ? "/" : path);
+            if (uri.getRawQuery() != null) {
+                key.append('?').append(uri.getRawQuery());
+            }
+            return key.toString();
+        } catch (Exception e) {
+            // Некорректный URL кэшируем как есть - проверка сама сообщит об ошибке
+            return normalized;
+        }
+    }
+
+    /**
+     * Удаляет все сохраненные результаты
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Число запросов, присоединившихся к уже выполняющейся проверке
+     */
+    public long getInFlightJoinCount() {
+        return joins.sum();
+    }
+
+    /**
+     * Доля запросов, обслуженных без новой проверки
+     */
+    public double getHitRatio() {
+        long served = hits.sum() + joins.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0.0 : (double) served / total;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Прерывание одной выполняющейся проверки из другого потока.
+ * <p>
+ * Блокирующий HttpURLConnection не реагирует на отмену CompletableFuture, поэтому
+ * прерывание закрывает текущее соединение и TLS сокет - ожидающий чтения поток
+ * сразу получает SocketException. Поток проверки также прерывается: на виртуальных
+ * потоках это останавливает и установку TCP соединения. На платформенных потоках
+ * установка соединения не прерывается и ограничена таймаутом подключения,
+ * после чего проверка сразу завершается.
+ */
+final class CheckAbort {
+    private volatile boolean aborted;
+    private volatile HttpURLConnection connection;
+    private volatile Socket socket;
+    private Thread worker;
+
+    /**
+     * Привязывает проверку к текущему потоку
+     */
+    synchronized void bind() {
+        worker = Thread.currentThread();
+    }
+
+    /**
+     * Отвязывает поток и сбрасывает прерывание, чтобы оно не досталось следующей задаче пула
+     */
+    void unbind() {
+        synchronized (this) {
+            worker = null;
+        }
+        Thread.interrupted();
+    }
+
+    void attach(HttpURLConnection connection) {
+        this.connection = connection;
+        if (aborted) {
+            connection.disconnect();
+            throw new CancellationException();
+        }
+    }
+
+    void attach(Socket socket) {
+        this.socket = socket;
+        if (aborted) {
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Бросает CancellationException, если проверка уже прервана
+     */
+    void checkNotAborted() {
+        if (aborted) {
+            throw new CancellationException();
+        }
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Прерывает проверку; повторный вызов безопасен
+     */
+    void abort() {
+        aborted = true;
+        Socket currentSocket = socket;
+        if (currentSocket != null) {
+            closeQuietly(currentSocket);
+        }
+        HttpURLConnection currentConnection = connection;
+        if (currentConnection != null) {
+            currentConnection.disconnect();
+        }
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Сокет уже закрыт или сломан - проверка все равно завершится ошибкой
+        }
+    }
+}
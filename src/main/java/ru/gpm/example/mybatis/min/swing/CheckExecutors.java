@@ -0,0 +1,44 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фабрика исполнителей для сетевых проверок.
+ * На JDK 21+ используются виртуальные потоки, на более старых JDK -
+ * кэшируемый пул daemon-потоков (число одновременных задач ограничивает вызывающий код).
+ */
+final class CheckExecutors {
+    private static final ExecutorService SHARED = newCheckExecutor("website-check");
+
+    private CheckExecutors() {
+    }
+
+    /**
+     * Общий исполнитель для одиночных асинхронных проверок
+     */
+    static ExecutorService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Создает новый исполнитель для блокирующих сетевых проверок
+     * @param namePrefix префикс имени платформенных потоков
+     */
+    static ExecutorService newCheckExecutor(String namePrefix) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Виртуальные потоки недоступны - используем платформенные
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
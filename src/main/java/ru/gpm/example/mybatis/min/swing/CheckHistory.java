@@ -0,0 +1,117 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Общий путь завершения проверок: сюда передают результаты CachingWebsiteChecker (проверки
+ * диалога, без результатов из кэша), планировщик мониторинга и пакетная проверка.
+ * <p>
+ * Полное время каждой проверки учитывается в гистограмме цели (LatencyTracker, ключ -
+ * нормализованный URL), откуда берутся процентили задержки по скользящему окну. Пакетная
+ * проверка гистограммы не ведет: каждый URL в ней - отдельная цель, и память росла бы с размером входа.
+ * Результаты дописываются в журнал ResultHistoryLog, если он задан. Общий экземпляр
+ * ведет журнал в каталоге из системного свойства {@value #DIRECTORY_PROPERTY}; без свойства
+ * журнал не ведется. Ошибка записи отключает журнал с сообщением в stderr, но не прерывает проверки.
+ */
+public final class CheckHistory implements AutoCloseable {
+    public static final String DIRECTORY_PROPERTY = "cursorbar.history.dir";
+
+    private static class SharedHolder {
+        private static final CheckHistory INSTANCE = new CheckHistory(openLog(System.getProperty(DIRECTORY_PROPERTY)));
+    }
+
+    private final LatencyTracker latencies;
+    private volatile ResultHistoryLog log;
+
+    /**
+     * @param log журнал результатов или null, если результаты не сохраняются
+     */
+    public CheckHistory(ResultHistoryLog log) {
+        this(log, new LatencyTracker());
+    }
+
+    /**
+     * @param log журнал результатов или null, если результаты не сохраняются
+     * @param latencies гистограммы задержек по целям или null, если задержки не учитываются
+     */
+    public CheckHistory(ResultHistoryLog log, LatencyTracker latencies) {
+        this.log = log;
+        this.latencies = latencies;
+    }
+
+    public static CheckHistory shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Журнал в каталоге directory или null, если каталог не задан или журнал не открылся
+     */
+    static ResultHistoryLog openLog(String directory) {
+        if (directory == null || directory.isEmpty()) {
+            return null;
+        }
+        try {
+            return new ResultHistoryLog(Paths.get(directory));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Result history disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Учитывает завершенную проверку; вызывается из потоков проверки и из EDT.
+     * URL со схемой используется как есть, без создания строк
+     * @param url проверенный URL
+     * @param result результат проверки
+     */
+    public void record(String url, WebsiteChecker.CheckResult result) {
+        String target = WebsiteChecker.normalizeUrl(url);
+        if (latencies != null) {
+            latencies.record(target, result);
+        }
+        ResultHistoryLog current = log;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.append(current.targetId(target), System.currentTimeMillis(), result);
+        } catch (IOException | RuntimeException e) {
+            // Журнал, закрытый вызовом close(), уже снят - сообщать не о чем
+            if (log == current) {
+                log = null;
+                System.err.println("Result history disabled: " + e);
+            }
+        }
+    }
+
+    /**
+     * Гистограммы задержек по целям или null, если задержки не учитываются; ключ - нормализованный URL
+     */
+    public LatencyTracker getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Процентили задержки цели за последние windowMillis или null, если цель еще не проверялась
+     */
+    public LatencyHistogram.Snapshot latency(String url, long windowMillis) {
+        return latencies == null ? null : latencies.snapshot(WebsiteChecker.normalizeUrl(url), windowMillis);
+    }
+
+    /**
+     * Журнал результатов или null, если он не ведется
+     */
+    public ResultHistoryLog getLog() {
+        return log;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ResultHistoryLog current = log;
+        log = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
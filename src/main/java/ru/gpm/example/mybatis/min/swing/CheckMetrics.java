@@ -0,0 +1,136 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Метрики проверок в общем реестре.
+ * <p>
+ * Исходы считаются по категориям WebsiteChecker.Outcome - тем же ветвям, что разбирают
+ * UnknownHostException, ConnectException, SocketTimeoutException и IOException.
+ * Глубина очереди - проверки, принятые, но ожидающие места: разрешения BulkWebsiteChecker,
+ * очереди хостов HostLimiter и очереди подключений TcpProbe.
+ * <p>
+ * Проверка может состоять из нескольких попыток (HedgedChecker: повторы и дублирующие попытки).
+ * Такая проверка учитывается один раз, а ее попытки, запущенные внутри {@link #attempt(Supplier)}, -
+ * только в checks.attempts, поэтому не завышают checks.completed и checks.per.second.
+ */
+final class CheckMetrics {
+    static final LongAdder STARTED;
+    static final LongAdder COMPLETED;
+    static final LongAdder CANCELLED;
+    static final LongAdder QUEUED;
+    static final LongAdder ATTEMPTS;
+    private static final LongAdder[] OUTCOMES;
+    // Запуск попыток составной проверки в текущем потоке
+    private static final ThreadLocal<Boolean> IN_ATTEMPT = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    // Частота завершений: пересчитывается не чаще раза в RATE_INTERVAL_NANOS при чтении
+    private static final long RATE_INTERVAL_NANOS = 1_000_000_000L;
+    private static long rateSampleNanos = System.nanoTime();
+    private static long rateSampleCount;
+    private static double rate;
+    private static boolean rateSampled;
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.shared();
+        STARTED = registry.counter("checks.started");
+        COMPLETED = registry.counter("checks.completed");
+        CANCELLED = registry.counter("checks.cancelled");
+        QUEUED = registry.counter("checks.queue.depth");
+        ATTEMPTS = registry.counter("checks.attempts");
+        WebsiteChecker.Outcome[] outcomes = WebsiteChecker.Outcome.values();
+        OUTCOMES = new LongAdder[outcomes.length];
+        for (WebsiteChecker.Outcome outcome : outcomes) {
+            OUTCOMES[outcome.ordinal()] = registry.counter(
+                "checks.outcome." + outcome.name().toLowerCase(Locale.ROOT).replace('_', '.'));
+        }
+        registry.gauge("checks.in.flight", () -> Math.max(0, STARTED.sum() - COMPLETED.sum() - CANCELLED.sum()));
+        registry.gauge("checks.per.second", CheckMetrics::completionRate);
+        registry.gauge("cache.hit.ratio", () -> CachingWebsiteChecker.shared().getHitRatio());
+    }
+
+    private CheckMetrics() {
+    }
+
+    /**
+     * Начало одного обращения к сайту
+     * @return true, если это попытка составной проверки: ее завершение как проверка не учитывается
+     */
+    static boolean started() {
+        ATTEMPTS.increment();
+        if (IN_ATTEMPT.get()) {
+            return true;
+        }
+        STARTED.increment();
+        return false;
+    }
+
+    /**
+     * Начало составной проверки; ее попытки учитывает started()
+     */
+    static void compositeStarted() {
+        STARTED.increment();
+    }
+
+    /**
+     * @param attempt значение, возвращенное started()
+     */
+    static void completed(WebsiteChecker.CheckResult result, boolean attempt) {
+        if (!attempt) {
+            COMPLETED.increment();
+            OUTCOMES[result.getOutcome().ordinal()].increment();
+        }
+    }
+
+    /**
+     * Проверка отменена до получения результата
+     * @param attempt значение, возвращенное started()
+     */
+    static void cancelled(boolean attempt) {
+        if (!attempt) {
+            CANCELLED.increment();
+        }
+    }
+
+    /**
+     * Запускает попытку составной проверки: started(), вызванный при запуске в этом потоке,
+     * учитывает ее только как попытку
+     */
+    static <T> T attempt(Supplier<T> start) {
+        if (IN_ATTEMPT.get()) {
+            return start.get();
+        }
+        IN_ATTEMPT.set(Boolean.TRUE);
+        try {
+            return start.get();
+        } finally {
+            IN_ATTEMPT.set(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Выполняется ли в текущем потоке запуск попытки; асинхронная проверка передает это
+     * потоку, в котором начинает обращение
+     */
+    static boolean inAttempt() {
+        return IN_ATTEMPT.get();
+    }
+
+    private static synchronized double completionRate() {
+        long now = System.nanoTime();
+        long elapsed = now - rateSampleNanos;
+        if (elapsed >= RATE_INTERVAL_NANOS) {
+            long count = COMPLETED.sum();
+            rate = (count - rateSampleCount) * 1e9 / elapsed;
+            rateSampleCount = count;
+            rateSampleNanos = now;
+            rateSampled = true;
+        } else if (!rateSampled) {
+            // Первый интервал еще не прошел - средняя частота с запуска
+            return (COMPLETED.sum() - rateSampleCount) * 1e9 / Math.max(1, elapsed);
+        }
+        return rate;
+    }
+}
@@ -3,11 +3,17 @@ package ru.gpm.example.mybatis.min.swing;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
 
 /**
  * Кастомный круговой ProgressBar
  */
 public class CircularProgressBar extends JComponent {
+    private static final Font TEXT_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final double SPINNER_EXTENT = 90.0;
+    private static final long SPINNER_PERIOD_NANOS = 1_000_000_000L;
+
     private int progress = 0;
     private int maximum = 100;
     private Color progressColor = new Color(0, 120, 215);
@@ -15,13 +21,42 @@ public class CircularProgressBar extends JComponent {
     private int strokeWidth = 8;
     private String text = "";
 
+    // Кэшированная отрисовка: объекты переиспользуются между кадрами
+    private boolean cachedRendering = true;
+    private final BasicStroke progressStroke =
+        new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private final Arc2D.Double arc = new Arc2D.Double();
+    private BufferedImage backgroundImage;
+    private String measuredText;
+    private int textWidth;
+    private int textHeight;
+    // Границы области, затронутой изменением дуги: x0, y0, x1, y1
+    private final int[] dirtyBounds = new int[4];
+
+    // Неопределенный режим: вращающаяся дуга, кадры от общего AnimationClock
+    private boolean indeterminate;
+    private double spinnerAngle;
+    private final AnimationClock.FrameListener spinnerListener = this::advanceSpinner;
+
     public CircularProgressBar() {
         setPreferredSize(new Dimension(120, 120));
     }
 
     public void setProgress(int progress) {
+        int oldProgress = this.progress;
         this.progress = Math.max(0, Math.min(progress, maximum));
-        repaint();
+        if (oldProgress == this.progress) {
+            return;
+        }
+        if (indeterminate) {
+            return;
+        }
+        if (cachedRendering) {
+            repaintSweep(360.0 * Math.min(oldProgress, this.progress) / maximum,
+                360.0 * Math.max(oldProgress, this.progress) / maximum);
+        } else {
+            repaint();
+        }
     }
 
     public void setMaximum(int maximum) {
@@ -30,8 +65,20 @@ public class CircularProgressBar extends JComponent {
     }
 
     public void setText(String text) {
+        if (cachedRendering && Objects.equals(text, this.text)) {
+            return;
+        }
+        if (cachedRendering && measuredText != null) {
+            // Стираем старый текст, новый займет свою область после измерения
+            repaintText();
+        }
         this.text = text;
-        repaint();
+        if (cachedRendering && measuredText != null) {
+            measureText(getFontMetrics(TEXT_FONT));
+            repaintText();
+        } else {
+            repaint();
+        }
     }
 
     public void setProgressColor(Color color) {
@@ -39,9 +86,83 @@ public class CircularProgressBar extends JComponent {
         repaint();
     }
 
+    /**
+     * Включает кэшированную отрисовку: фон хранится в изображении, шрифт, перо и дуга
+     * переиспользуются, а при смене прогресса перерисовывается только измененный участок дуги
+     */
+    public void setCachedRendering(boolean cachedRendering) {
+        this.cachedRendering = cachedRendering;
+        backgroundImage = null;
+        measuredText = null;
+        repaint();
+    }
+
+    public boolean isCachedRendering() {
+        return cachedRendering;
+    }
+
+    /**
+     * Неопределенный режим: вместо прогресса вращается дуга фиксированной длины.
+     * Кадры поступают от общего {@link AnimationClock}, пока компонент отображается.
+     * Вызывается из EDT.
+     */
+    public void setIndeterminate(boolean indeterminate) {
+        if (this.indeterminate == indeterminate) {
+            return;
+        }
+        this.indeterminate = indeterminate;
+        if (isDisplayable()) {
+            if (indeterminate) {
+                AnimationClock.getInstance().register(this, spinnerListener);
+            } else {
+                AnimationClock.getInstance().unregister(spinnerListener);
+            }
+        }
+        repaint();
+    }
+
+    public boolean isIndeterminate() {
+        return indeterminate;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (indeterminate) {
+            AnimationClock.getInstance().register(this, spinnerListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (indeterminate) {
+            AnimationClock.getInstance().unregister(spinnerListener);
+        }
+        super.removeNotify();
+    }
+
+    private void advanceSpinner(long frameNanos) {
+        double oldAngle = spinnerAngle;
+        spinnerAngle = (frameNanos % SPINNER_PERIOD_NANOS) * 360.0 / SPINNER_PERIOD_NANOS;
+        if (cachedRendering) {
+            double newAngle = spinnerAngle < oldAngle ? spinnerAngle + 360.0 : spinnerAngle;
+            repaintSweep(oldAngle, newAngle + SPINNER_EXTENT);
+        } else {
+            repaint();
+        }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (cachedRendering) {
+            paintCached((Graphics2D) g);
+        } else {
+            paintUncached(g);
+        }
+    }
+
+    private void paintUncached(Graphics g) {
         Graphics2D g2d = (Graphics2D) g.create();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
@@ -57,16 +178,20 @@ public class CircularProgressBar extends JComponent {
         g2d.fillOval(x, y, size, size);
 
         // Рисуем прогресс
-        if (progress > 0) {
+        if (indeterminate) {
             g2d.setColor(progressColor);
             g2d.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            
+            g2d.draw(new Arc2D.Double(x, y, size, size, 90 - spinnerAngle, -SPINNER_EXTENT, Arc2D.OPEN));
+        } else if (progress > 0) {
+            g2d.setColor(progressColor);
+            g2d.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+
             double angle = 360.0 * progress / maximum;
             g2d.draw(new Arc2D.Double(x, y, size, size, 90, -angle, Arc2D.OPEN));
         }
 
         // Рисуем текст
-        if (!text.isEmpty()) {
+        if (text != null && !text.isEmpty()) {
             g2d.setColor(Color.BLACK);
             g2d.setFont(new Font("Arial", Font.BOLD, 12));
             FontMetrics fm = g2d.getFontMetrics();
@@ -77,4 +202,129 @@ public class CircularProgressBar extends JComponent {
 
         g2d.dispose();
     }
+
+    /**
+     * Отрисовка без копирования Graphics и без создания объектов в установившемся режиме.
+     * Измененное состояние Graphics восстанавливается в конце.
+     */
+    private void paintCached(Graphics2D g2d) {
+        Object oldAntialiasing = g2d.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        Object oldTextAntialiasing = g2d.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+        Color oldColor = g2d.getColor();
+        Stroke oldStroke = g2d.getStroke();
+        Font oldFont = g2d.getFont();
+
+        int width = getWidth();
+        int height = getHeight();
+        int size = Math.min(width, height) - strokeWidth;
+        int x = (width - size) / 2;
+        int y = (height - size) / 2;
+
+        // Фон рисуется один раз для текущего размера
+        if (backgroundImage == null || backgroundImage.getWidth() != width
+                || backgroundImage.getHeight() != height) {
+            backgroundImage = renderBackground(width, height, x, y, size);
+        }
+        g2d.drawImage(backgroundImage, 0, 0, null);
+
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        if (indeterminate) {
+            g2d.setColor(progressColor);
+            g2d.setStroke(progressStroke);
+            arc.setArc(x, y, size, size, 90 - spinnerAngle, -SPINNER_EXTENT, Arc2D.OPEN);
+            g2d.draw(arc);
+        } else if (progress > 0) {
+            g2d.setColor(progressColor);
+            g2d.setStroke(progressStroke);
+            arc.setArc(x, y, size, size, 90, -360.0 * progress / maximum, Arc2D.OPEN);
+            g2d.draw(arc);
+        }
+
+        if (text != null && !text.isEmpty()) {
+            g2d.setColor(Color.BLACK);
+            g2d.setFont(TEXT_FONT);
+            if (!Objects.equals(text, measuredText)) {
+                measureText(g2d.getFontMetrics());
+            }
+            g2d.drawString(text, (width - textWidth) / 2, (height + textHeight / 2) / 2);
+        }
+
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, oldAntialiasing);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, oldTextAntialiasing);
+        g2d.setColor(oldColor);
+        g2d.setStroke(oldStroke);
+        g2d.setFont(oldFont);
+    }
+
+    private BufferedImage renderBackground(int width, int height, int x, int y, int size) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        BufferedImage image = configuration != null
+            ? configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+            : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(backgroundColor);
+        g2d.fillOval(x, y, size, size);
+        g2d.dispose();
+        return image;
+    }
+
+    private void measureText(FontMetrics fm) {
+        measuredText = text;
+        textWidth = text == null ? 0 : fm.stringWidth(text);
+        textHeight = fm.getHeight();
+    }
+
+    private void repaintText() {
+        int width = getWidth();
+        int height = getHeight();
+        int baseline = (height + textHeight / 2) / 2;
+        repaint((width - textWidth) / 2 - 1, baseline - textHeight, textWidth + 2, textHeight * 2);
+    }
+
+    /**
+     * Перерисовывает только участок окружности между двумя углами
+     * @param fromAngle начальный угол в градусах по часовой стрелке от 12 часов
+     * @param toAngle конечный угол, не меньше начального
+     */
+    private void repaintSweep(double fromAngle, double toAngle) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0 || maximum <= 0) {
+            return;
+        }
+        int size = Math.min(width, height) - strokeWidth;
+        double radius = size / 2.0;
+        double centerX = (width - size) / 2 + radius;
+        double centerY = (height - size) / 2 + radius;
+        int[] bounds = dirtyBounds;
+        bounds[0] = Integer.MAX_VALUE;
+        bounds[1] = Integer.MAX_VALUE;
+        bounds[2] = Integer.MIN_VALUE;
+        bounds[3] = Integer.MIN_VALUE;
+        includeArcPoint(bounds, centerX, centerY, radius, fromAngle);
+        includeArcPoint(bounds, centerX, centerY, radius, toAngle);
+        // Крайние точки окружности, попавшие в диапазон углов
+        for (int extreme = 0; extreme <= 720; extreme += 90) {
+            if (extreme > fromAngle && extreme < toAngle) {
+                includeArcPoint(bounds, centerX, centerY, radius, extreme);
+            }
+        }
+        int padding = strokeWidth / 2 + 2;
+        repaint(bounds[0] - padding, bounds[1] - padding,
+            bounds[2] - bounds[0] + 2 * padding, bounds[3] - bounds[1] + 2 * padding);
+    }
+
+    private static void includeArcPoint(int[] bounds, double centerX, double centerY, double radius,
+                                        double clockwiseAngle) {
+        double radians = Math.toRadians(clockwiseAngle);
+        int px = (int) Math.floor(centerX + radius * Math.sin(radians));
+        int py = (int) Math.floor(centerY - radius * Math.cos(radians));
+        bounds[0] = Math.min(bounds[0], px);
+        bounds[1] = Math.min(bounds[1], py);
+        bounds[2] = Math.max(bounds[2], px + 1);
+        bounds[3] = Math.max(bounds[3], py + 1);
+    }
 }
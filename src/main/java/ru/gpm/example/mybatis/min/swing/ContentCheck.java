@@ -0,0 +1,282 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Проверка содержимого ответа: ключевое слово, регулярное выражение и/или ограничение размера тела.
+ * <p>
+ * Тело читается потоково в буферы постоянного размера, которые переиспользуются потоком
+ * проверки, поэтому память на проверку не зависит от размера страницы. Чтение прекращается,
+ * как только найдено совпадение или превышен предел. Без ограничения размера просматриваются
+ * первые {@value #DEFAULT_SCAN_LIMIT_BYTES} байт.
+ * <ul>
+ *     <li>Ключевое слово ищется по байтам в кодировке ответа (алгоритм Кнута-Морриса-Пратта), без декодирования;
+ *     кодировка берется из Content-Type, по умолчанию UTF-8. Если в кодировке ответа слово не представимо,
+ *     ищутся его байты в UTF-8;</li>
+ *     <li>регулярное выражение применяется к окну из последних {@value #REGEX_WINDOW_CHARS} символов
+ *     и новой порции текста, поэтому совпадение должно быть не длиннее окна, а ^ и $ относятся к границам окна;
+ *     кодировка берется из Content-Type, по умолчанию UTF-8.</li>
+ * </ul>
+ * Экземпляр неизменяем и может использоваться многими проверками одновременно.
+ */
+public final class ContentCheck {
+    public static final long DEFAULT_SCAN_LIMIT_BYTES = 1024 * 1024;
+    static final int REGEX_WINDOW_CHARS = 4096;
+    private static final int READ_BUFFER_BYTES = 8192;
+
+    /**
+     * Итог проверки содержимого
+     */
+    public enum Verdict {
+        MATCHED,
+        NOT_FOUND,
+        TOO_LARGE
+    }
+
+    /**
+     * Буферы чтения потока проверки
+     */
+    private static final class Buffers {
+        final ByteBuffer bytes = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        final CharBuffer chars = CharBuffer.allocate(2 * REGEX_WINDOW_CHARS);
+        CharsetDecoder decoder;
+    }
+
+    /**
+     * Байты ключевого слова в одной кодировке и таблица префикс-функции для них
+     */
+    private static final class EncodedKeyword {
+        final Charset charset;
+        final byte[] bytes;
+        final int[] failure;
+
+        EncodedKeyword(Charset charset, byte[] bytes) {
+            this(charset, bytes, failureTable(bytes));
+        }
+
+        EncodedKeyword(Charset charset, byte[] bytes, int[] failure) {
+            this.charset = charset;
+            this.bytes = bytes;
+            this.failure = failure;
+        }
+    }
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    // Ключевое слово; null, если не задано
+    private final String keyword;
+    private final EncodedKeyword utf8Keyword;
+    // Ключевое слово в последней встреченной кодировке, отличной от UTF-8
+    private volatile EncodedKeyword lastKeyword;
+    private final Pattern pattern;
+    // Наибольший допустимый размер тела; 0 - размер не проверяется
+    private final long maxBodyBytes;
+
+    private ContentCheck(String keyword, Pattern pattern, long maxBodyBytes) {
+        this.keyword = keyword;
+        this.utf8Keyword = keyword != null
+            ? new EncodedKeyword(StandardCharsets.UTF_8, keyword.getBytes(StandardCharsets.UTF_8)) : null;
+        this.pattern = pattern;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * Тело должно содержать ключевое слово (с учетом регистра)
+     */
+    public static ContentCheck keyword(String keyword) {
+        if (keyword.isEmpty()) {
+            throw new IllegalArgumentException("Keyword must not be empty");
+        }
+        return new ContentCheck(keyword, null, 0);
+    }
+
+    /**
+     * В теле должно найтись совпадение с регулярным выражением
+     */
+    public static ContentCheck regex(String regex) {
+        return new ContentCheck(null, Pattern.compile(regex), 0);
+    }
+
+    /**
+     * Тело должно быть не больше maxBodyBytes байт
+     */
+    public static ContentCheck maxBodySize(long maxBodyBytes) {
+        return new ContentCheck(null, null, 0).withMaxBodySize(maxBodyBytes);
+    }
+
+    /**
+     * Та же проверка с ограничением размера тела. Если совпадение найдено раньше,
+     * остаток тела не читается и его размер не проверяется.
+     */
+    public ContentCheck withMaxBodySize(long maxBodyBytes) {
+        if (maxBodyBytes <= 0) {
+            throw new IllegalArgumentException("Max body size must be positive: " + maxBodyBytes);
+        }
+        return new ContentCheck(keyword, pattern, maxBodyBytes);
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    /**
+     * Проверяет тело ответа; поток не закрывается
+     * @param body тело ответа
+     * @param contentLength длина из заголовка Content-Length или -1
+     * @param charset кодировка тела из Content-Type или UTF-8, если она не указана
+     */
+    Verdict evaluate(InputStream body, long contentLength, Charset charset) throws IOException {
+        if (maxBodyBytes > 0 && contentLength > maxBodyBytes) {
+            return Verdict.TOO_LARGE;
+        }
+        long limit = maxBodyBytes > 0 ? maxBodyBytes : DEFAULT_SCAN_LIMIT_BYTES;
+        Buffers buffers = BUFFERS.get();
+        ByteBuffer bytes = buffers.bytes;
+        bytes.clear();
+        Matcher matcher = null;
+        CharsetDecoder decoder = null;
+        CharBuffer chars = buffers.chars;
+        if (pattern != null) {
+            decoder = buffers.decoder;
+            if (decoder == null || !decoder.charset().equals(charset)) {
+                decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                buffers.decoder = decoder;
+            }
+            decoder.reset();
+            chars.clear();
+            matcher = pattern.matcher("");
+        }
+        EncodedKeyword encoded = keyword != null ? encodedKeyword(charset) : null;
+        int keywordState = 0;
+        long total = 0;
+        boolean eof = false;
+        while (!eof) {
+            // Читаем не больше limit + 1 байт: лишний байт показывает, что предел превышен
+            int length = (int) Math.min(bytes.remaining(), limit + 1 - total);
+            int read = body.read(bytes.array(), bytes.position(), length);
+            if (read < 0) {
+                eof = true;
+            } else {
+                total += read;
+                if (encoded != null) {
+                    keywordState = scanKeyword(encoded, bytes.array(), bytes.position(), read, keywordState);
+                    if (keywordState == encoded.bytes.length) {
+                        return Verdict.MATCHED;
+                    }
+                }
+                bytes.position(bytes.position() + read);
+            }
+            if (matcher != null) {
+                bytes.flip();
+                if (scanText(bytes, chars, decoder, matcher, eof)) {
+                    return Verdict.MATCHED;
+                }
+                bytes.compact();
+            } else {
+                bytes.clear();
+            }
+            if (total > limit) {
+                return maxBodyBytes > 0 ? Verdict.TOO_LARGE : Verdict.NOT_FOUND;
+            }
+        }
+        return keyword == null && pattern == null ? Verdict.MATCHED : Verdict.NOT_FOUND;
+    }
+
+    /**
+     * Ключевое слово в кодировке charset; байты в UTF-8, если слово в ней не представимо
+     */
+    private EncodedKeyword encodedKeyword(Charset charset) {
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            return utf8Keyword;
+        }
+        EncodedKeyword last = lastKeyword;
+        if (last != null && last.charset.equals(charset)) {
+            return last;
+        }
+        EncodedKeyword encoded = new EncodedKeyword(charset, utf8Keyword.bytes, utf8Keyword.failure);
+        CharsetEncoder encoder = charset.canEncode() ? charset.newEncoder() : null;
+        if (encoder != null && encoder.canEncode(keyword)) {
+            try {
+                ByteBuffer buffer = encoder.reset().encode(CharBuffer.wrap(keyword));
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                encoded = new EncodedKeyword(charset, bytes);
+            } catch (CharacterCodingException e) {
+                // Остаются байты в UTF-8
+            }
+        }
+        lastKeyword = encoded;
+        return encoded;
+    }
+
+    /**
+     * Продолжает поиск ключевого слова с состояния state
+     * @return новое состояние; длина слова в байтах - слово найдено
+     */
+    private static int scanKeyword(EncodedKeyword keyword, byte[] data, int offset, int length, int state) {
+        byte[] word = keyword.bytes;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            while (state > 0 && b != word[state]) {
+                state = keyword.failure[state - 1];
+            }
+            if (b == word[state] && ++state == word.length) {
+                return state;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Декодирует прочитанные байты и ищет совпадение в окне; в буфере символов
+     * остаются последние REGEX_WINDOW_CHARS символов для совпадений на границе порций
+     */
+    private static boolean scanText(ByteBuffer bytes, CharBuffer chars, CharsetDecoder decoder, Matcher matcher,
+                                    boolean eof) {
+        CoderResult coderResult;
+        do {
+            coderResult = decoder.decode(bytes, chars, eof);
+            if (eof && coderResult.isUnderflow()) {
+                decoder.flush(chars);
+            }
+            chars.flip();
+            if (matcher.reset(chars).find()) {
+                return true;
+            }
+            if (chars.remaining() > REGEX_WINDOW_CHARS) {
+                chars.position(chars.limit() - REGEX_WINDOW_CHARS);
+            }
+            chars.compact();
+        } while (coderResult.isOverflow());
+        return false;
+    }
+
+    private static int[] failureTable(byte[] word) {
+        int[] failure = new int[word.length];
+        int k = 0;
+        for (int i = 1; i < word.length; i++) {
+            while (k > 0 && word[i] != word[k]) {
+                k = failure[k - 1];
+            }
+            if (word[i] == word[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.swing.*;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Панель текущих показателей EdtWatchdog: задержка и длительность событий EDT,
+ * число долгих событий и пропущенных кадров, стек последнего зависания.
+ * Обновляется таймером, пока панель показана.
+ */
+public class EdtStatsPanel extends JPanel {
+    private static final int REFRESH_MILLIS = 250;
+
+    private final LocalizationManager localization = LocalizationManager.getInstance();
+    private final EdtWatchdog watchdog;
+    private final Timer refreshTimer;
+    private final JLabel dispatchLabel = new JLabel();
+    private final JLabel taskLabel = new JLabel();
+    private final JLabel longTasksLabel = new JLabel();
+    private final JLabel jankLabel = new JLabel();
+    private final JLabel stallLabel = new JLabel();
+    private final JTextArea stackArea = new JTextArea(12, 60);
+    // Снимок, показанный в stackArea, чтобы не перерисовывать текст без изменений
+    private EdtWatchdog.Stall shownStall;
+
+    public EdtStatsPanel(EdtWatchdog watchdog) {
+        super(new BorderLayout(0, 8));
+        this.watchdog = watchdog;
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel statsPanel = new JPanel(new GridLayout(0, 1, 0, 4));
+        statsPanel.add(new JLabel(localization.getString("edt.threshold", watchdog.getThresholdMillis())));
+        statsPanel.add(dispatchLabel);
+        statsPanel.add(taskLabel);
+        statsPanel.add(longTasksLabel);
+        statsPanel.add(jankLabel);
+        statsPanel.add(stallLabel);
+        add(statsPanel, BorderLayout.NORTH);
+
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        add(new JScrollPane(stackArea), BorderLayout.CENTER);
+
+        refreshTimer = new Timer(REFRESH_MILLIS, e -> refresh());
+        refresh();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        LatencyHistogram.Snapshot dispatch = watchdog.getDispatchLatency();
+        dispatchLabel.setText(localization.getString("edt.dispatch.latency",
+            dispatch.getP50Nanos() / 1e6, dispatch.getP99Nanos() / 1e6, dispatch.getMaxNanos() / 1e6));
+        LatencyHistogram.Snapshot tasks = watchdog.getTaskDurations();
+        taskLabel.setText(localization.getString("edt.task.duration",
+            tasks.getP50Nanos() / 1e6, tasks.getP99Nanos() / 1e6, tasks.getMaxNanos() / 1e6));
+        longTasksLabel.setText(localization.getString("edt.long.tasks",
+            watchdog.getLongTaskCount(), watchdog.getStallCount()));
+        jankLabel.setText(localization.getString("edt.janky.frames", watchdog.getJankyFrameCount()));
+
+        List<EdtWatchdog.Stall> stalls = watchdog.getStalls();
+        EdtWatchdog.Stall last = stalls.isEmpty() ? null : stalls.get(stalls.size() - 1);
+        if (last == null) {
+            stallLabel.setText(localization.getString("edt.no.stalls"));
+        } else if (last != shownStall) {
+            stallLabel.setText(localization.getString("edt.last.stall",
+                new SimpleDateFormat("HH:mm:ss").format(new Date(last.getTimestampMillis())),
+                last.getDurationMillis()));
+            StringBuilder text = new StringBuilder();
+            for (StackTraceElement element : last.getStack()) {
+                text.append("at ").append(element).append('\n');
+            }
+            stackArea.setText(text.toString());
+            stackArea.setCaretPosition(0);
+        }
+        shownStall = last;
+    }
+}
@@ -0,0 +1,271 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Наблюдение за отзывчивостью EDT.
+ * <p>
+ * Измеряются:
+ * <ul>
+ *     <li>задержка обработки - сколько событие, отправленное через invokeLater, ждет в очереди;
+ *     фоновый поток отправляет такое событие раз в {@value #PROBE_MILLIS} мс;</li>
+ *     <li>длительность каждого события EDT - через EventQueue, подставленную поверх системной;</li>
+ *     <li>пропущенные кадры AnimationClock - интервал между кадрами больше двух периодов.</li>
+ * </ul>
+ * Если событие выполняется дольше порога, фоновый поток снимает стек EDT, пока событие
+ * еще выполняется, - по стеку видно, что именно блокирует EDT. Последние снимки хранятся
+ * и показываются в EdtStatsPanel; в stderr стек выводится, только если это явно запрошено.
+ * Значения публикуются в MetricsRegistry с префиксом edt.
+ * <p>
+ * Наблюдение необязательно и включается вызовом {@link #install(long)}.
+ */
+public final class EdtWatchdog {
+    public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+    static final long PROBE_MILLIS = 50;
+    private static final int MAX_STALLS = 10;
+
+    /**
+     * Снимок стека EDT во время долгого события
+     */
+    public static final class Stall {
+        private final long timestampMillis;
+        private final long durationMillis;
+        private final StackTraceElement[] stack;
+
+        Stall(long timestampMillis, long durationMillis, StackTraceElement[] stack) {
+            this.timestampMillis = timestampMillis;
+            this.durationMillis = durationMillis;
+            this.stack = stack;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        /**
+         * Сколько событие выполнялось к моменту снимка
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public StackTraceElement[] getStack() {
+            return stack.clone();
+        }
+    }
+
+    /**
+     * Очередь событий, замеряющая длительность каждого события.
+     * Модальный диалог обрабатывает события во вложенном цикле внутри события, открывшего его;
+     * такое внешнее событие не блокирует EDT и в длительности не учитывается.
+     */
+    private final class TimingEventQueue extends EventQueue {
+        // Номер последнего начатого события; меняется только в EDT
+        private long dispatchSerial;
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            edt = Thread.currentThread();
+            long serial = ++dispatchSerial;
+            long start = System.nanoTime();
+            dispatchStartNanos = start;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                dispatchStartNanos = 0;
+                if (serial == dispatchSerial) {
+                    long duration = System.nanoTime() - start;
+                    taskDurations.recordNanos(duration);
+                    if (duration >= thresholdNanos) {
+                        longTasks.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private static volatile EdtWatchdog installed;
+
+    private final long thresholdNanos;
+    private final boolean printStalls;
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private final LatencyHistogram taskDurations = new LatencyHistogram();
+    private final LongAdder longTasks;
+    private final LongAdder stallCount;
+    private final LongAdder jankyFrames;
+    private final ArrayDeque<Stall> stalls = new ArrayDeque<>();
+    private volatile Thread edt;
+    // Начало выполняющегося события или 0, если EDT свободен
+    private volatile long dispatchStartNanos;
+    // Событие, для которого стек уже снят
+    private long capturedStartNanos;
+    // Отправленное и еще не выполненное проверочное событие
+    private volatile boolean probePending;
+
+    private EdtWatchdog(long thresholdMillis, boolean printStalls) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.printStalls = printStalls;
+        MetricsRegistry registry = MetricsRegistry.shared();
+        longTasks = registry.counter("edt.long.tasks");
+        stallCount = registry.counter("edt.stalls");
+        jankyFrames = registry.counter("edt.janky.frames");
+        registry.gauge("edt.dispatch.latency.p99.ms", () -> dispatchLatency.percentileNanos(99) / 1e6);
+        registry.gauge("edt.dispatch.latency.max.ms", () -> dispatchLatency.percentileNanos(100) / 1e6);
+        registry.gauge("edt.task.p99.ms", () -> taskDurations.percentileNanos(99) / 1e6);
+        registry.gauge("edt.task.max.ms", () -> taskDurations.percentileNanos(100) / 1e6);
+    }
+
+    /**
+     * Включает наблюдение; повторный вызов возвращает уже работающий экземпляр
+     * @param thresholdMillis длительность события EDT, после которой снимается стек
+     */
+    public static EdtWatchdog install(long thresholdMillis) {
+        return install(thresholdMillis, false);
+    }
+
+    /**
+     * Включает наблюдение; повторный вызов возвращает уже работающий экземпляр
+     * @param thresholdMillis длительность события EDT, после которой снимается стек
+     * @param printStalls выводить ли снятые стеки в stderr
+     */
+    public static synchronized EdtWatchdog install(long thresholdMillis, boolean printStalls) {
+        if (installed == null) {
+            EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis, printStalls);
+            Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog.new TimingEventQueue());
+            Thread thread = new Thread(watchdog::watchLoop, "edt-watchdog");
+            thread.setDaemon(true);
+            thread.start();
+            installed = watchdog;
+        }
+        return installed;
+    }
+
+    /**
+     * Работающий экземпляр или null, если наблюдение не включено
+     */
+    public static EdtWatchdog getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Сообщает интервал между кадрами AnimationClock; вызывается из EDT
+     */
+    static void frameInterval(long intervalNanos) {
+        EdtWatchdog watchdog = installed;
+        if (watchdog != null && intervalNanos > 2 * TimeUnit.MILLISECONDS.toNanos(AnimationClock.FRAME_MILLIS)) {
+            watchdog.jankyFrames.increment();
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            try {
+                Thread.sleep(PROBE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Без открытых окон события не отправляются, чтобы не мешать завершению AWT
+            if (!probePending && anyWindowDisplayable()) {
+                probePending = true;
+                long postedNanos = System.nanoTime();
+                EventQueue.invokeLater(() -> {
+                    dispatchLatency.recordNanos(System.nanoTime() - postedNanos);
+                    probePending = false;
+                });
+            }
+            checkStall();
+        }
+    }
+
+    private static boolean anyWindowDisplayable() {
+        for (Window window : Window.getWindows()) {
+            if (window.isDisplayable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Снимает стек EDT, если текущее событие выполняется дольше порога; один раз на событие
+     */
+    private void checkStall() {
+        long start = dispatchStartNanos;
+        Thread thread = edt;
+        if (start == 0 || thread == null || start == capturedStartNanos) {
+            return;
+        }
+        long running = System.nanoTime() - start;
+        if (running < thresholdNanos) {
+            return;
+        }
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (dispatchStartNanos != start) {
+            // Событие завершилось, пока снимался стек, - снимок относится к другому событию
+            return;
+        }
+        capturedStartNanos = start;
+        stallCount.increment();
+        if (printStalls) {
+            Throwable trace = new Throwable("EDT blocked for " + TimeUnit.NANOSECONDS.toMillis(running) + " ms");
+            trace.setStackTrace(stack);
+            trace.printStackTrace();
+        }
+        synchronized (stalls) {
+            if (stalls.size() == MAX_STALLS) {
+                stalls.removeFirst();
+            }
+            stalls.addLast(new Stall(System.currentTimeMillis(), TimeUnit.NANOSECONDS.toMillis(running), stack));
+        }
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * Задержка обработки событий за последнюю минуту
+     */
+    public LatencyHistogram.Snapshot getDispatchLatency() {
+        return dispatchLatency.snapshot(dispatchLatency.getWindowMillis());
+    }
+
+    /**
+     * Длительность событий EDT за последнюю минуту
+     */
+    public LatencyHistogram.Snapshot getTaskDurations() {
+        return taskDurations.snapshot(taskDurations.getWindowMillis());
+    }
+
+    public long getLongTaskCount() {
+        return longTasks.sum();
+    }
+
+    /**
+     * Сколько раз снят стек зависшего EDT
+     */
+    public long getStallCount() {
+        return stallCount.sum();
+    }
+
+    public long getJankyFrameCount() {
+        return jankyFrames.sum();
+    }
+
+    /**
+     * Последние снимки стека, от старых к новым
+     */
+    public List<Stall> getStalls() {
+        synchronized (stalls) {
+            return new ArrayList<>(stalls);
+        }
+    }
+}
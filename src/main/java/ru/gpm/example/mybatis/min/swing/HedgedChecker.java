@@ -0,0 +1,286 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Проверка с дублирующими попытками (hedging) и повтором ошибок подключения.
+ * <p>
+ * Если проверка не завершилась за p95 задержки хоста, запускается вторая попытка;
+ * результатом становится та, что завершится первой, другая отменяется. Так одна
+ * потерянная на пути пакета попытка не ждет таймаута чтения. Задержки хостов собираются
+ * в LatencyTracker по результатам самих проверок; пока записей меньше {@value #MIN_SAMPLES},
+ * дублирование для хоста не выполняется. Доля дублирующих попыток ограничена maxHedgeRatio,
+ * чтобы при общем замедлении они не удвоили нагрузку.
+ * <p>
+ * Ошибки подключения (CONNECTION_ERROR) повторяются до maxRetries раз с экспоненциальной
+ * задержкой и полным джиттером: пауза выбирается равномерно от 0 до min(backoffMax, backoffBase * 2^n).
+ * Число дублирующих попыток, их побед и повторов публикуется в MetricsRegistry.
+ * <p>
+ * Время результата отсчитывается от начала первой попытки, включая паузы между повторами.
+ * В CheckMetrics проверка учитывается один раз, а ее попытки - только в checks.attempts.
+ * С HostLimiter дополнительные попытки соблюдают ограничения хоста: дублирующая попытка
+ * занимает отдельное место, повтор ждет маркер частоты в месте своей попытки.
+ */
+public class HedgedChecker {
+    public static final double DEFAULT_HEDGE_PERCENTILE = 95;
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+    public static final int DEFAULT_MAX_RETRIES = 2;
+    public static final long DEFAULT_BACKOFF_BASE_MILLIS = 100;
+    public static final long DEFAULT_BACKOFF_MAX_MILLIS = 2000;
+    static final long MIN_SAMPLES = 20;
+
+    private static final LongAdder HEDGES_TOTAL = MetricsRegistry.shared().counter("checks.hedges");
+    private static final LongAdder HEDGE_WINS_TOTAL = MetricsRegistry.shared().counter("checks.hedge.wins");
+    private static final LongAdder RETRIES_TOTAL = MetricsRegistry.shared().counter("checks.retries");
+
+    private final Function<String, CompletableFuture<WebsiteChecker.CheckResult>> checker;
+    private final LatencyTracker tracker;
+    private final HostLimiter hostLimiter;
+    private final double hedgePercentile;
+    private final double maxHedgeRatio;
+    private final int maxRetries;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * @param checker функция, запускающая одну попытку; отмена ее CompletableFuture должна прерывать попытку
+     */
+    public HedgedChecker(Function<String, CompletableFuture<WebsiteChecker.CheckResult>> checker) {
+        this(checker, new LatencyTracker(), DEFAULT_HEDGE_PERCENTILE, DEFAULT_MAX_HEDGE_RATIO,
+            DEFAULT_MAX_RETRIES, DEFAULT_BACKOFF_BASE_MILLIS, DEFAULT_BACKOFF_MAX_MILLIS);
+    }
+
+    /**
+     * @param checker функция, запускающая одну попытку; отмена ее CompletableFuture должна прерывать попытку
+     * @param tracker задержки по хостам (ключ - HostLimiter.hostKey)
+     * @param hedgePercentile процентиль задержки хоста, после которого запускается вторая попытка; 0 - без дублирования
+     * @param maxHedgeRatio наибольшая доля проверок с дублирующей попыткой
+     * @param maxRetries число повторов после ошибки подключения; 0 - без повторов
+     * @param backoffBaseMillis пауза перед первым повтором (верхняя граница джиттера)
+     * @param backoffMaxMillis наибольшая пауза между повторами
+     */
+    public HedgedChecker(Function<String, CompletableFuture<WebsiteChecker.CheckResult>> checker,
+                         LatencyTracker tracker, double hedgePercentile, double maxHedgeRatio, int maxRetries,
+                         long backoffBaseMillis, long backoffMaxMillis) {
+        this(checker, tracker, hedgePercentile, maxHedgeRatio, maxRetries, backoffBaseMillis, backoffMaxMillis, null);
+    }
+
+    /**
+     * @param checker функция, запускающая одну попытку; отмена ее CompletableFuture должна прерывать попытку
+     * @param tracker задержки по хостам (ключ - HostLimiter.hostKey)
+     * @param hedgePercentile процентиль задержки хоста, после которого запускается вторая попытка; 0 - без дублирования
+     * @param maxHedgeRatio наибольшая доля проверок с дублирующей попыткой
+     * @param maxRetries число повторов после ошибки подключения; 0 - без повторов
+     * @param backoffBaseMillis пауза перед первым повтором (верхняя граница джиттера)
+     * @param backoffMaxMillis наибольшая пауза между повторами
+     * @param hostLimiter ограничение, через которое check() уже запущен (например, в BulkWebsiteChecker), или null;
+     *                    первая попытка занимает место, выделенное самой проверке
+     */
+    public HedgedChecker(Function<String, CompletableFuture<WebsiteChecker.CheckResult>> checker,
+                         LatencyTracker tracker, double hedgePercentile, double maxHedgeRatio, int maxRetries,
+                         long backoffBaseMillis, long backoffMaxMillis, HostLimiter hostLimiter) {
+        if (hedgePercentile < 0 || hedgePercentile > 100 || maxHedgeRatio < 0 || maxRetries < 0
+                || backoffBaseMillis < 0 || backoffMaxMillis < backoffBaseMillis) {
+            throw new IllegalArgumentException("Invalid hedging or retry settings");
+        }
+        this.checker = checker;
+        this.tracker = tracker;
+        this.hedgePercentile = hedgePercentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.maxRetries = maxRetries;
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.hostLimiter = hostLimiter;
+    }
+
+    /**
+     * Цепочка попыток с повторами. Отмена сначала отменяет текущую попытку, поэтому зависимые
+     * от цепочки действия (например, освобождение места хоста в HostLimiter) выполняются уже после нее.
+     */
+    private static final class AttemptChain extends CompletableFuture<WebsiteChecker.CheckResult> {
+        volatile CompletableFuture<WebsiteChecker.CheckResult> current;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            CompletableFuture<WebsiteChecker.CheckResult> attempt = current;
+            if (attempt != null) {
+                attempt.cancel(mayInterruptIfRunning);
+            }
+            super.cancel(mayInterruptIfRunning);
+            return isCancelled();
+        }
+    }
+
+    /**
+     * Одна проверка: ее результат и цепочки попыток (основная и дублирующая)
+     */
+    private static final class Check {
+        final CompletableFuture<WebsiteChecker.CheckResult> result = new CompletableFuture<>();
+        final List<CompletableFuture<WebsiteChecker.CheckResult>> chains = new CopyOnWriteArrayList<>();
+        final AtomicBoolean settled = new AtomicBoolean();
+        final String host;
+        final long startNanos = System.nanoTime();
+
+        Check(String host) {
+            this.host = host;
+        }
+
+        void add(CompletableFuture<WebsiteChecker.CheckResult> chain) {
+            chains.add(chain);
+            result.whenComplete((value, error) -> chain.cancel(true));
+        }
+    }
+
+    /**
+     * Запускает проверку; отмена возвращенного CompletableFuture отменяет все ее попытки
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> check(String urlString) {
+        checks.increment();
+        CheckMetrics.compositeStarted();
+        Check check = new Check(HostLimiter.hostKey(urlString));
+        check.result.whenComplete((value, error) -> {
+            if (value != null) {
+                CheckMetrics.completed(value, false);
+            } else {
+                CheckMetrics.cancelled(false);
+            }
+        });
+        CompletableFuture<WebsiteChecker.CheckResult> primary = withRetries(urlString);
+        check.add(primary);
+        primary.whenComplete((value, error) -> complete(check, primary, value, error));
+
+        long hedgeDelayNanos = hedgePercentile > 0
+            ? tracker.percentileNanos(check.host, hedgePercentile, MIN_SAMPLES) : 0;
+        if (hedgeDelayNanos > 0) {
+            CompletableFuture.delayedExecutor(hedgeDelayNanos, TimeUnit.NANOSECONDS, CheckExecutors.shared())
+                .execute(() -> hedge(urlString, check));
+        }
+        return check.result;
+    }
+
+    private void hedge(String urlString, Check check) {
+        if (check.settled.get() || hedges.sum() >= maxHedgeRatio * checks.sum()) {
+            return;
+        }
+        hedges.increment();
+        HEDGES_TOTAL.increment();
+        // Дублирующая попытка одновременна с основной, поэтому занимает у хоста отдельное место
+        CompletableFuture<WebsiteChecker.CheckResult> second = hostLimiter != null
+            ? hostLimiter.submit(urlString, () -> withRetries(urlString)) : withRetries(urlString);
+        check.add(second);
+        second.whenComplete((value, error) -> {
+            if (complete(check, second, value, error)) {
+                hedgeWins.increment();
+                HEDGE_WINS_TOTAL.increment();
+            }
+        });
+    }
+
+    /**
+     * Завершает проверку результатом цепочки попыток; время отсчитывается от начала первой попытки.
+     * Остальные цепочки отменяются до завершения проверки, чтобы место хоста освободилось
+     * раньше, чем его займет следующая проверка.
+     * @return true, если результатом проверки стала эта цепочка
+     */
+    private boolean complete(Check check, CompletableFuture<WebsiteChecker.CheckResult> chain,
+                             WebsiteChecker.CheckResult value, Throwable error) {
+        if (!check.settled.compareAndSet(false, true)) {
+            return false;
+        }
+        for (CompletableFuture<WebsiteChecker.CheckResult> other : check.chains) {
+            if (other != chain) {
+                other.cancel(true);
+            }
+        }
+        if (error != null) {
+            check.result.completeExceptionally(error);
+        } else if (check.result.complete(value.withTotalNanos(System.nanoTime() - check.startNanos))) {
+            // Порог дублирования строится по времени самих попыток
+            tracker.record(check.host, value);
+        }
+        return true;
+    }
+
+    /**
+     * Попытка с повторами ошибок подключения; отмена отменяет текущую попытку и следующие повторы
+     */
+    private CompletableFuture<WebsiteChecker.CheckResult> withRetries(String urlString) {
+        AttemptChain result = new AttemptChain();
+        attempt(urlString, 0, result);
+        return result;
+    }
+
+    private void attempt(String urlString, int retry, AttemptChain result) {
+        if (result.isDone()) {
+            return;
+        }
+        Supplier<CompletableFuture<WebsiteChecker.CheckResult>> start =
+            () -> CheckMetrics.attempt(() -> checker.apply(urlString));
+        CompletableFuture<WebsiteChecker.CheckResult> attempt;
+        try {
+            // Повтор идет после завершения предыдущей попытки в ее же месте хоста, но тратит маркер частоты
+            attempt = retry > 0 && hostLimiter != null ? hostLimiter.submitRetry(urlString, start) : start.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        result.current = attempt;
+        // Цепочка могла быть отменена до того, как попытка стала текущей
+        result.whenComplete((value, error) -> attempt.cancel(true));
+        attempt.whenComplete((value, error) -> {
+            if (error == null && retry < maxRetries
+                    && value.getOutcome() == WebsiteChecker.Outcome.CONNECTION_ERROR) {
+                retries.increment();
+                RETRIES_TOTAL.increment();
+                CompletableFuture.delayedExecutor(backoffMillis(retry), TimeUnit.MILLISECONDS, CheckExecutors.shared())
+                    .execute(() -> attempt(urlString, retry + 1, result));
+            } else if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private long backoffMillis(int retry) {
+        long ceiling = Math.min(backoffMaxMillis, backoffBaseMillis << Math.min(retry, 30));
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    /**
+     * Запущено дублирующих попыток
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * Дублирующие попытки, завершившиеся раньше основной
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * Выполнено повторов после ошибки подключения
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+}
@@ -0,0 +1,402 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение нагрузки на один хост: число одновременных проверок и частота запросов.
+ * <p>
+ * Частота ограничивается маркерной корзиной в форме GCRA: состояние корзины - одно
+ * расчетное время следующего запроса в AtomicLong, резервирование выполняется CAS без блокировок.
+ * Проверки, которым пока нет места, ждут в очереди хоста и не занимают потоки;
+ * ожидание маркера выполняет общий планировщик.
+ * <p>
+ * Состояния хостов хранятся в ограниченной таблице: простаивающие хосты без ожидающих
+ * и выполняющихся проверок удаляются. Обход таблицы стоит O(числа хостов), поэтому выполняется
+ * не чаще раза на столько вызовов submit, сколько хостов осталось после прошлого обхода:
+ * на вызов приходится O(1) работы, а таблица может временно превысить maxHosts
+ * примерно вдвое.
+ * <p>
+ * Число задач, ожидающих и выполняющихся у одного хоста, можно ограничить (см. submit с maxPending):
+ * тогда очередь медленного или ограниченного по частоте хоста не растет без предела и не вытесняет
+ * остальные хосты из общего лимита вызывающего.
+ */
+public class HostLimiter implements AutoCloseable {
+    public static final int DEFAULT_MAX_HOSTS = 10_000;
+    public static final long DEFAULT_IDLE_MILLIS = 60_000;
+
+    // Как часто (в вызовах submit) искать простаивающие хосты в небольшой таблице
+    private static final int SWEEP_INTERVAL = 1024;
+
+    /**
+     * Ожидающая проверка
+     */
+    private static final class Pending<T> {
+        final Supplier<CompletableFuture<T>> task;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        // Поставлена ли в очередь; выставляется внутри compute
+        boolean queued;
+
+        Pending(Supplier<CompletableFuture<T>> task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * Состояние одного хоста
+     */
+    private final class HostState {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final ConcurrentLinkedQueue<Pending<?>> queue = new ConcurrentLinkedQueue<>();
+        // Задачи submit, ожидающие в очереди или выполняющиеся
+        final AtomicInteger accepted = new AtomicInteger();
+        // Потоки, ожидающие места в очереди хоста; монитор - сам HostState
+        final AtomicInteger waiters = new AtomicInteger();
+        // Расчетное время следующего запроса (GCRA), нс
+        final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+        volatile long lastUsedNanos = System.nanoTime();
+
+        /**
+         * Запускает ожидающие проверки, пока есть свободные места
+         */
+        void drain() {
+            while (!queue.isEmpty()) {
+                int current = inFlight.get();
+                if (current >= maxConcurrentPerHost) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                Pending<?> pending = queue.poll();
+                if (pending == null) {
+                    // Очередь опустела между проверкой и извлечением
+                    inFlight.decrementAndGet();
+                    continue;
+                }
+                CheckMetrics.QUEUED.decrement();
+                if (pending.result.isDone()) {
+                    // Отменена, пока ждала в очереди: место и маркер не нужны
+                    inFlight.decrementAndGet();
+                    release();
+                    continue;
+                }
+                long delay = reserveToken();
+                if (delay <= 0) {
+                    start(pending);
+                } else {
+                    timer.schedule(() -> start(pending), delay, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        /**
+         * Резервирует маркер
+         * @return сколько ждать до разрешенного времени запроса, нс
+         */
+        long reserveToken() {
+            if (intervalNanos == 0) {
+                return 0;
+            }
+            while (true) {
+                long now = System.nanoTime();
+                long arrival = theoreticalArrival.get();
+                long start = arrival - now > 0 ? arrival : now;
+                // Пачка из burst запросов допускается сразу, остальные разносятся по интервалу
+                long allowedAt = start - burstNanos;
+                if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                    return allowedAt - now;
+                }
+            }
+        }
+
+        void start(Pending<?> pending) {
+            lastUsedNanos = System.nanoTime();
+            run(pending, () -> {
+                inFlight.decrementAndGet();
+                lastUsedNanos = System.nanoTime();
+                release();
+                drain();
+            });
+        }
+
+        /**
+         * Задача submit завершена или снята: освобождает место в очереди хоста
+         */
+        void release() {
+            accepted.decrementAndGet();
+            if (waiters.get() > 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Ждет, пока у хоста меньше maxPending задач
+         */
+        void awaitRoom(int maxPending) throws InterruptedException {
+            waiters.incrementAndGet();
+            try {
+                synchronized (this) {
+                    while (accepted.get() >= maxPending) {
+                        wait();
+                    }
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+
+        boolean isIdle(long now, long idleNanos) {
+            return inFlight.get() == 0 && queue.isEmpty() && now - lastUsedNanos >= idleNanos;
+        }
+    }
+
+    private final int maxConcurrentPerHost;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxHosts;
+    private final long idleNanos;
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+    private final AtomicInteger submitsSinceSweep = new AtomicInteger();
+    // Через сколько вызовов submit искать простаивающие хосты: не меньше размера таблицы после обхода
+    private volatile int sweepInterval = SWEEP_INTERVAL;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "host-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param maxConcurrentPerHost максимальное число одновременных проверок одного хоста
+     * @param requestsPerSecond допустимая частота запросов к хосту; 0 - без ограничения
+     * @param burst сколько запросов подряд допускается без ожидания
+     */
+    public HostLimiter(int maxConcurrentPerHost, double requestsPerSecond, int burst) {
+        this(maxConcurrentPerHost, requestsPerSecond, burst, DEFAULT_MAX_HOSTS, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * @param maxConcurrentPerHost максимальное число одновременных проверок одного хоста
+     * @param requestsPerSecond допустимая частота запросов к хосту; 0 - без ограничения
+     * @param burst сколько запросов подряд допускается без ожидания
+     * @param maxHosts сколько хостов хранить, прежде чем удалять простаивающие досрочно
+     * @param idleMillis через сколько простоя состояние хоста удаляется
+     */
+    public HostLimiter(int maxConcurrentPerHost, double requestsPerSecond, int burst, int maxHosts,
+                       long idleMillis) {
+        if (maxConcurrentPerHost < 1) {
+            throw new IllegalArgumentException("maxConcurrentPerHost must be positive: " + maxConcurrentPerHost);
+        }
+        if (requestsPerSecond < 0) {
+            throw new IllegalArgumentException("requestsPerSecond must not be negative: " + requestsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive: " + burst);
+        }
+        if (maxHosts < 1) {
+            throw new IllegalArgumentException("maxHosts must be positive: " + maxHosts);
+        }
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.intervalNanos = requestsPerSecond == 0 ? 0 : (long) (1_000_000_000L / requestsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.maxHosts = maxHosts;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    /**
+     * Запускает задачу, когда у хоста URL есть свободное место и маркер.
+     * Отмена возвращенного CompletableFuture снимает задачу с очереди или отменяет запущенную.
+     * @param url URL проверки; хост определяется по нему
+     * @param task запускает проверку и возвращает ее результат
+     * @return CompletableFuture с результатом задачи
+     */
+    public <T> CompletableFuture<T> submit(String url, Supplier<CompletableFuture<T>> task) {
+        return enqueue(hostKey(url), new Pending<>(task), Integer.MAX_VALUE);
+    }
+
+    /**
+     * То же, но у хоста не больше maxPending ожидающих и выполняющихся задач:
+     * если очередь хоста заполнена, вызывающий поток ждет, пока одна из них не завершится
+     * @param maxPending наибольшее число задач хоста, включая выполняющиеся
+     */
+    public <T> CompletableFuture<T> submit(String url, Supplier<CompletableFuture<T>> task, int maxPending)
+            throws InterruptedException {
+        String host = hostKey(url);
+        Pending<T> pending = new Pending<>(task);
+        while (true) {
+            CompletableFuture<T> result = tryEnqueue(host, pending, maxPending);
+            if (result != null) {
+                return result;
+            }
+            HostState state = hosts.get(host);
+            if (state != null) {
+                // Ожидание места в очереди хоста учитывается в глубине очереди
+                CheckMetrics.QUEUED.increment();
+                try {
+                    state.awaitRoom(maxPending);
+                } finally {
+                    CheckMetrics.QUEUED.decrement();
+                }
+            }
+        }
+    }
+
+    /**
+     * То же без ожидания
+     * @return CompletableFuture с результатом задачи или null, если очередь хоста заполнена
+     */
+    public <T> CompletableFuture<T> trySubmit(String url, Supplier<CompletableFuture<T>> task, int maxPending) {
+        return tryEnqueue(hostKey(url), new Pending<>(task), maxPending);
+    }
+
+    private <T> CompletableFuture<T> tryEnqueue(String host, Pending<T> pending, int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+        }
+        return enqueue(host, pending, maxPending);
+    }
+
+    /**
+     * Ставит задачу в очередь хоста, если в ней есть место
+     * @return результат задачи или null, если у хоста уже maxPending задач
+     */
+    private <T> CompletableFuture<T> enqueue(String host, Pending<T> pending, int maxPending) {
+        // Постановка в очередь выполняется внутри compute, поэтому не пересекается с удалением хоста
+        HostState state = hosts.compute(host, (key, existing) -> {
+            HostState target = existing != null ? existing : new HostState();
+            if (target.accepted.get() < maxPending) {
+                target.accepted.incrementAndGet();
+                CheckMetrics.QUEUED.increment();
+                target.queue.add(pending);
+                pending.queued = true;
+            }
+            return target;
+        });
+        if (!pending.queued) {
+            return null;
+        }
+        state.drain();
+        int submits = submitsSinceSweep.incrementAndGet();
+        if (submits >= sweepInterval && submitsSinceSweep.compareAndSet(submits, 0)) {
+            sweep();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Запускает повторную попытку проверки, которая уже занимает место хоста: место не занимается
+     * еще раз, ожидается только маркер частоты. Отмена возвращенного CompletableFuture отменяет задачу.
+     * @param url URL проверки; хост определяется по нему
+     * @param task запускает попытку и возвращает ее результат
+     * @return CompletableFuture с результатом задачи
+     */
+    public <T> CompletableFuture<T> submitRetry(String url, Supplier<CompletableFuture<T>> task) {
+        Pending<T> pending = new Pending<>(task);
+        long[] delay = new long[1];
+        // Маркер резервируется внутри compute, как и постановка в очередь в submit:
+        // удаление хоста не потеряет резервирование
+        hosts.compute(hostKey(url), (key, existing) -> {
+            HostState target = existing != null ? existing : new HostState();
+            target.lastUsedNanos = System.nanoTime();
+            delay[0] = target.reserveToken();
+            return target;
+        });
+        if (delay[0] <= 0) {
+            run(pending, () -> { });
+        } else {
+            timer.schedule(() -> run(pending, () -> { }), delay[0], TimeUnit.NANOSECONDS);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Выполняет задачу и передает ее результат; отмена результата отменяет задачу
+     * @param onDone вызывается по завершении задачи или вместо нее, если результат уже отменен
+     */
+    private static <T> void run(Pending<T> pending, Runnable onDone) {
+        if (pending.result.isDone()) {
+            onDone.run();
+            return;
+        }
+        CompletableFuture<T> future;
+        try {
+            future = pending.task.get();
+        } catch (Throwable t) {
+            future = CompletableFuture.failedFuture(t);
+        }
+        CompletableFuture<T> started = future;
+        pending.result.whenComplete((value, error) -> {
+            if (pending.result.isCancelled()) {
+                started.cancel(true);
+            }
+        });
+        future.whenComplete((value, error) -> {
+            onDone.run();
+            if (error != null) {
+                pending.result.completeExceptionally(error);
+            } else {
+                pending.result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Удаляет простаивающие хосты; при переполнении таблицы - все хосты без проверок
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        long idle = hosts.size() > maxHosts ? 0 : idleNanos;
+        for (String host : hosts.keySet()) {
+            hosts.computeIfPresent(host, (key, state) -> state.isIdle(now, idle) ? null : state);
+        }
+        sweepInterval = Math.max(SWEEP_INTERVAL, hosts.size());
+    }
+
+    /**
+     * Ключ хоста: схема и стандартный порт не учитываются, нестандартный порт - учитывается
+     */
+    static String hostKey(String url) {
+        try {
+            URI uri = URI.create(WebsiteChecker.normalizeUrl(url.trim()));
+            if (uri.getHost() != null) {
+                String host = uri.getHost().toLowerCase(Locale.ROOT);
+                int port = uri.getPort();
+                if (port == -1 || (port == 80 && "http".equalsIgnoreCase(uri.getScheme()))
+                        || (port == 443 && "https".equalsIgnoreCase(uri.getScheme()))) {
+                    return host;
+                }
+                return host + ":" + port;
+            }
+        } catch (IllegalArgumentException e) {
+            // Некорректный URL ограничиваем как отдельный хост
+        }
+        return url;
+    }
+
+    /**
+     * Число хостов в таблице
+     */
+    public int getHostCount() {
+        return hosts.size();
+    }
+
+    public int getMaxConcurrentPerHost() {
+        return maxConcurrentPerHost;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
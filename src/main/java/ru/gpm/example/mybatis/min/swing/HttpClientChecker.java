@@ -0,0 +1,232 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Проверка доступности сайтов через общий java.net.http.HttpClient.
+ * Соединения переиспользуются (keep-alive, мультиплексирование HTTP/2),
+ * поэтому повторные проверки того же хоста не платят за новое TCP/TLS соединение.
+ * Небольшое тело GET дочитывается, чтобы HTTP/1.1 соединение вернулось в пул: тело с Content-Length
+ * до DRAIN_LIMIT_BYTES - до завершения проверки, тело без длины - в фоне после заголовков.
+ * Большое тело не читается, и проверка, как в WebsiteChecker, завершается на заголовках.
+ */
+public class HttpClientChecker {
+    /**
+     * Сколько байт тела GET дочитывается ради переиспользования соединения
+     */
+    static final long DRAIN_LIMIT_BYTES = 64 * 1024;
+
+    /**
+     * Обработчик тела GET; тело не буферизуется. Тело длиннее DRAIN_LIMIT_BYTES (по Content-Length
+     * или по прочитанному) не дочитывается: подписка отменяется, HTTP/1.1 соединение закрывается,
+     * поток HTTP/2 сбрасывается.
+     */
+    private static final HttpResponse.BodyHandler<Void> GET_BODY = responseInfo -> new DrainingSubscriber(
+        responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1));
+
+    private final HttpClient client;
+    private final ProbeMode probeMode;
+
+    private static class SharedHolder {
+        private static final HttpClientChecker INSTANCE = new HttpClientChecker();
+    }
+
+    public HttpClientChecker() {
+        this(CheckExecutors.shared());
+    }
+
+    public HttpClientChecker(Executor executor) {
+        this(executor, ProbeMode.GET);
+    }
+
+    /**
+     * @param executor исполнитель для обработки ответов и зависимых задач HttpClient
+     * @param probeMode способ зондирования
+     */
+    public HttpClientChecker(Executor executor, ProbeMode probeMode) {
+        this.probeMode = probeMode;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(WebsiteChecker.CONNECT_TIMEOUT_MS))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * Общий экземпляр с единым пулом соединений
+     */
+    public static HttpClientChecker shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Проверяет доступность сайта синхронно
+     * @param urlString URL для проверки
+     * @return результат проверки
+     */
+    public WebsiteChecker.CheckResult check(String urlString) {
+        if (probeMode == ProbeMode.TCP_CONNECT) {
+            return TcpProbe.shared().probe(urlString).join();
+        }
+        boolean attempt = CheckMetrics.started();
+        WebsiteChecker.CheckResult result = send(urlString);
+        CheckMetrics.completed(result, attempt);
+        return result;
+    }
+
+    private WebsiteChecker.CheckResult send(String urlString) {
+        long startTime = System.nanoTime();
+        try {
+            HttpResponse<Void> response;
+            if (probeMode == ProbeMode.HEAD_FIRST) {
+                response = client.send(newRequest(urlString, "HEAD"), HttpResponse.BodyHandlers.discarding());
+                if (ProbeMode.isHeadRejected(response.statusCode())) {
+                    response = client.send(newRequest(urlString, "GET"), GET_BODY);
+                }
+            } else {
+                response = client.send(newRequest(urlString, "GET"), GET_BODY);
+            }
+            return WebsiteChecker.httpResult(response.statusCode(), System.nanoTime() - startTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return WebsiteChecker.failureResult(e, urlString, System.nanoTime() - startTime);
+        } catch (Exception e) {
+            return WebsiteChecker.failureResult(e, urlString, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Проверяет доступность сайта асинхронно, не занимая поток на время ожидания ответа.
+     * Отмена возвращенного CompletableFuture отменяет и сам HTTP обмен, закрывая его соединение.
+     * @param urlString URL для проверки
+     * @return CompletableFuture с результатом проверки
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> checkAsync(String urlString) {
+        if (probeMode == ProbeMode.TCP_CONNECT) {
+            return TcpProbe.shared().probe(urlString);
+        }
+        boolean attempt = CheckMetrics.started();
+        long startTime = System.nanoTime();
+        // Текущий HTTP обмен; при HEAD_FIRST после отказа в HEAD заменяется на GET
+        AtomicReference<CompletableFuture<HttpResponse<Void>>> exchange = new AtomicReference<>();
+        CompletableFuture<HttpResponse<Void>> responseFuture;
+        try {
+            if (probeMode == ProbeMode.HEAD_FIRST) {
+                HttpRequest fallback = newRequest(urlString, "GET");
+                exchange.set(client.sendAsync(newRequest(urlString, "HEAD"), HttpResponse.BodyHandlers.discarding()));
+                responseFuture = exchange.get()
+                    .thenCompose(response -> {
+                        if (!ProbeMode.isHeadRejected(response.statusCode())) {
+                            return CompletableFuture.completedFuture(response);
+                        }
+                        exchange.set(client.sendAsync(fallback, GET_BODY));
+                        return exchange.get();
+                    });
+            } else {
+                responseFuture = client.sendAsync(newRequest(urlString, "GET"), GET_BODY);
+                exchange.set(responseFuture);
+            }
+        } catch (Exception e) {
+            WebsiteChecker.CheckResult failure = WebsiteChecker.failureResult(e, urlString,
+                System.nanoTime() - startTime);
+            CheckMetrics.completed(failure, attempt);
+            return CompletableFuture.completedFuture(failure);
+        }
+        CompletableFuture<WebsiteChecker.CheckResult> result = responseFuture
+            .handle((response, error) -> {
+                long totalNanos = System.nanoTime() - startTime;
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                    return WebsiteChecker.failureResult(cause, urlString, totalNanos);
+                }
+                return WebsiteChecker.httpResult(response.statusCode(), totalNanos);
+            });
+        // Отмена зависимого CompletableFuture не доходит до HttpClient сама по себе
+        result.whenComplete((checkResult, error) -> {
+            if (checkResult != null) {
+                CheckMetrics.completed(checkResult, attempt);
+            } else {
+                CheckMetrics.cancelled(attempt);
+            }
+            if (result.isCancelled()) {
+                exchange.get().cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static HttpRequest newRequest(String urlString, String method) {
+        return HttpRequest.newBuilder(URI.create(WebsiteChecker.normalizeUrl(urlString)))
+            .timeout(Duration.ofMillis(WebsiteChecker.READ_TIMEOUT_MS))
+            .header("User-Agent", WebsiteChecker.USER_AGENT)
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+    }
+
+    private static class DrainingSubscriber implements HttpResponse.BodySubscriber<Void> {
+        // Длина тела из Content-Length или -1, если она не объявлена
+        private final long contentLength;
+        // Ответ готов сразу, если тело не дочитывается до конца проверки, иначе - по окончании тела
+        private final CompletableFuture<Void> body;
+        private Flow.Subscription subscription;
+        private long received;
+
+        DrainingSubscriber(long contentLength) {
+            this.contentLength = contentLength;
+            boolean drainFirst = contentLength >= 0 && contentLength <= DRAIN_LIMIT_BYTES;
+            this.body = drainFirst ? new CompletableFuture<>() : CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletionStage<Void> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (contentLength > DRAIN_LIMIT_BYTES) {
+                subscription.cancel();
+                body.complete(null);
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            for (ByteBuffer buffer : item) {
+                received += buffer.remaining();
+            }
+            if (received > DRAIN_LIMIT_BYTES) {
+                subscription.cancel();
+                body.complete(null);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Заголовки уже получены, результат проверки определяет код ответа
+            body.complete(null);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(null);
+        }
+    }
+}
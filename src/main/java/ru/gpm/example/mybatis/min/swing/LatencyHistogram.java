@@ -0,0 +1,281 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек с логарифмическими корзинами (в духе HdrHistogram)
+ * и скользящим окном из нескольких временных слотов.
+ * <p>
+ * Запись выполняется без блокировок и не создает объектов: счетчики всех слотов лежат в одном
+ * массиве int[], созданном вместе с гистограммой, и увеличиваются атомарно через VarHandle.
+ * Значения хранятся в микросекундах; относительная погрешность корзины - не более 1/2^precisionBits.
+ * <p>
+ * У каждого слота есть метка интервала времени. Первая запись в новый интервал захватывает слот
+ * CAS метки и обнуляет его счетчики на месте. Записи, пришедшие во время обнуления, пропускаются,
+ * а запись, начатая до смены интервала, может попасть в следующий интервал - для процентилей
+ * это несущественно. Память гистограммы постоянна: slotCount * (28 - precisionBits) * 2^precisionBits
+ * счетчиков по 4 байта, около 4,7 КБ при slotCount 6 и precisionBits 3.
+ */
+public class LatencyHistogram {
+    public static final int DEFAULT_PRECISION_BITS = 4;
+    public static final int DEFAULT_SLOT_COUNT = 6;
+    public static final long DEFAULT_SLOT_MILLIS = 10_000;
+
+    /**
+     * Максимальное записываемое значение - около 134 с, дольше любого таймаута проверки;
+     * большие значения ограничиваются
+     */
+    private static final long MAX_VALUE_MICROS = (1L << 27) - 1;
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // Метки слота: в слот еще не писали; счетчики слота обнуляются
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long RESETTING = Long.MIN_VALUE + 1;
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int bucketCount;
+    private final int slotCount;
+    private final long slotMillis;
+    // Счетчики слота index занимают [index * bucketCount, (index + 1) * bucketCount)
+    private final int[] counts;
+    // Интервал времени (номер слота от эпохи), к которому относятся счетчики слота
+    private final AtomicLongArray epochs;
+
+    /**
+     * Процентили задержки за окно, в наносекундах
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        Snapshot(long count, long p50, long p90, long p99, long p999, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50Nanos() {
+            return p50;
+        }
+
+        public long getP90Nanos() {
+            return p90;
+        }
+
+        public long getP99Nanos() {
+            return p99;
+        }
+
+        public long getP999Nanos() {
+            return p999;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+    }
+
+    public LatencyHistogram() {
+        this(DEFAULT_PRECISION_BITS, DEFAULT_SLOT_COUNT, DEFAULT_SLOT_MILLIS);
+    }
+
+    /**
+     * @param precisionBits число бит точности внутри степени двойки (1..10)
+     * @param slotCount число слотов скользящего окна
+     * @param slotMillis длительность одного слота
+     */
+    public LatencyHistogram(int precisionBits, int slotCount, long slotMillis) {
+        if (precisionBits < 1 || precisionBits > 10) {
+            throw new IllegalArgumentException("precisionBits must be in [1, 10]: " + precisionBits);
+        }
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("slotCount must be positive: " + slotCount);
+        }
+        if (slotMillis < 1) {
+            throw new IllegalArgumentException("slotMillis must be positive: " + slotMillis);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.bucketCount = bucketIndex(MAX_VALUE_MICROS) + 1;
+        this.slotCount = slotCount;
+        this.slotMillis = slotMillis;
+        this.counts = new int[slotCount * bucketCount];
+        this.epochs = new AtomicLongArray(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            epochs.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Записывает значение задержки в текущий слот
+     */
+    public void recordNanos(long nanos) {
+        recordNanos(nanos, System.currentTimeMillis());
+    }
+
+    void recordNanos(long nanos, long nowMillis) {
+        long micros = Math.min(MAX_VALUE_MICROS, Math.max(0, nanos / 1000));
+        long epoch = nowMillis / slotMillis;
+        int index = (int) (epoch % slotCount);
+        long stamp = epochs.get(index);
+        if (stamp != epoch) {
+            if (stamp == RESETTING || stamp > epoch) {
+                // Слот обнуляется или уже переиспользован более поздним интервалом - пропускаем
+                return;
+            }
+            if (!startSlot(index, stamp, epoch)) {
+                return;
+            }
+        }
+        INTS.getAndAdd(counts, index * bucketCount + bucketIndex(micros), 1);
+    }
+
+    /**
+     * Переводит истекший слот на интервал epoch, обнуляя его счетчики на месте
+     * @return true, если слот относится к интервалу epoch и готов к записи
+     */
+    private boolean startSlot(int index, long expired, long epoch) {
+        if (!epochs.compareAndSet(index, expired, RESETTING)) {
+            // Слот перевел другой поток
+            return epochs.get(index) == epoch;
+        }
+        int from = index * bucketCount;
+        Arrays.fill(counts, from, from + bucketCount, 0);
+        // Запись метки публикует обнуленные счетчики
+        epochs.set(index, epoch);
+        return true;
+    }
+
+    /**
+     * Процентили за последние windowMillis (с точностью до слота, не более всего окна)
+     */
+    public Snapshot snapshot(long windowMillis) {
+        return snapshot(windowMillis, System.currentTimeMillis());
+    }
+
+    Snapshot snapshot(long windowMillis, long nowMillis) {
+        long[] merged = new long[bucketCount];
+        long total = merge(windowMillis, nowMillis, merged);
+        if (total == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+        long max = 0;
+        for (int i = bucketCount - 1; i >= 0; i--) {
+            if (merged[i] != 0) {
+                max = highestEquivalentMicros(i) * 1000;
+                break;
+            }
+        }
+        return new Snapshot(total,
+            percentile(merged, total, 50.0),
+            percentile(merged, total, 90.0),
+            percentile(merged, total, 99.0),
+            percentile(merged, total, 99.9),
+            max);
+    }
+
+    /**
+     * Процентиль за все окно, в наносекундах; 0, если записей нет
+     */
+    public long percentileNanos(double percentile) {
+        return percentileNanos(percentile, 1);
+    }
+
+    /**
+     * Процентиль за все окно, в наносекундах; 0, если записей меньше minCount
+     */
+    public long percentileNanos(double percentile, long minCount) {
+        long[] merged = new long[bucketCount];
+        long total = merge(getWindowMillis(), System.currentTimeMillis(), merged);
+        return total == 0 || total < minCount ? 0 : percentile(merged, total, percentile);
+    }
+
+    /**
+     * Суммирует счетчики слотов, попадающих в окно
+     * @return общее число записей
+     */
+    private long merge(long windowMillis, long nowMillis, long[] merged) {
+        long currentEpoch = nowMillis / slotMillis;
+        int windowSlots = (int) Math.min(slotCount, Math.max(1, (windowMillis + slotMillis - 1) / slotMillis));
+        long total = 0;
+        for (int index = 0; index < slotCount; index++) {
+            long stamp = epochs.get(index);
+            // Пустые и обнуляемые слоты имеют метки меньше любого интервала
+            if (stamp > currentEpoch || stamp <= currentEpoch - windowSlots) {
+                continue;
+            }
+            int from = index * bucketCount;
+            for (int i = 0; i < bucketCount; i++) {
+                long value = (int) INTS.getOpaque(counts, from + i);
+                merged[i] += value;
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    private long percentile(long[] merged, long total, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < merged.length; i++) {
+            seen += merged[i];
+            if (seen >= rank) {
+                return highestEquivalentMicros(i) * 1000;
+            }
+        }
+        return highestEquivalentMicros(merged.length - 1) * 1000;
+    }
+
+    /**
+     * Номер корзины: первые subBucketCount значений линейны, далее на каждую
+     * степень двойки приходится subBucketCount корзин
+     */
+    private int bucketIndex(long micros) {
+        if (micros < subBucketCount) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - precisionBits;
+        int top = (int) (micros >>> shift);
+        return (shift + 1) * subBucketCount + (top - subBucketCount);
+    }
+
+    /**
+     * Наибольшее значение, попадающее в корзину
+     */
+    private long highestEquivalentMicros(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketCount - 1;
+        long top = subBucketCount + index % subBucketCount;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public long getSlotMillis() {
+        return slotMillis;
+    }
+
+    /**
+     * Полная длительность скользящего окна
+     */
+    public long getWindowMillis() {
+        return slotMillis * slotCount;
+    }
+}
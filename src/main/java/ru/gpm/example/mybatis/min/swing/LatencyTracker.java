@@ -0,0 +1,95 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Гистограммы задержек по целям мониторинга.
+ * Запись результата на пути завершения проверки не блокирует и не создает объектов
+ * (кроме первой записи для новой цели).
+ * По умолчанию точность корзины 1/8: гистограмма цели занимает около 5 КБ.
+ * Число целей ограничено maxTargets; при переполнении гистограммы сбрасываются.
+ */
+public class LatencyTracker {
+    public static final int DEFAULT_PRECISION_BITS = 3;
+    public static final int DEFAULT_MAX_TARGETS = 10_000;
+
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final int precisionBits;
+    private final int slotCount;
+    private final long slotMillis;
+    private final int maxTargets;
+
+    public LatencyTracker() {
+        this(DEFAULT_PRECISION_BITS, LatencyHistogram.DEFAULT_SLOT_COUNT,
+            LatencyHistogram.DEFAULT_SLOT_MILLIS, DEFAULT_MAX_TARGETS);
+    }
+
+    /**
+     * Параметры передаются в каждую создаваемую гистограмму, см. {@link LatencyHistogram}
+     * @param maxTargets сколько целей хранить, прежде чем сбросить все гистограммы
+     */
+    public LatencyTracker(int precisionBits, int slotCount, long slotMillis, int maxTargets) {
+        if (maxTargets < 1) {
+            throw new IllegalArgumentException("maxTargets must be positive: " + maxTargets);
+        }
+        this.precisionBits = precisionBits;
+        this.slotCount = slotCount;
+        this.slotMillis = slotMillis;
+        this.maxTargets = maxTargets;
+    }
+
+    /**
+     * Учитывает полное время проверки. Результаты без ответа сервера учитываются
+     * только для таймаутов и открытых TCP портов: быстрые ошибки DNS или подключения
+     * исказили бы распределение.
+     * @param target цель (например, нормализованный URL)
+     * @param result результат проверки
+     */
+    public void record(String target, WebsiteChecker.CheckResult result) {
+        if (result.getStatusCode() == 0 && result.getOutcome() != WebsiteChecker.Outcome.TIMEOUT
+                && result.getOutcome() != WebsiteChecker.Outcome.AVAILABLE) {
+            return;
+        }
+        histogram(target).recordNanos(result.getTotalNanos());
+    }
+
+    /**
+     * Гистограмма цели; создается при первом обращении
+     */
+    public LatencyHistogram histogram(String target) {
+        LatencyHistogram histogram = histograms.get(target);
+        if (histogram == null) {
+            if (histograms.size() >= maxTargets) {
+                histograms.clear();
+            }
+            histogram = histograms.computeIfAbsent(target,
+                key -> new LatencyHistogram(precisionBits, slotCount, slotMillis));
+        }
+        return histogram;
+    }
+
+    /**
+     * Процентили цели за последние windowMillis или null, если цель еще не проверялась
+     */
+    public LatencyHistogram.Snapshot snapshot(String target, long windowMillis) {
+        LatencyHistogram histogram = histograms.get(target);
+        return histogram == null ? null : histogram.snapshot(windowMillis);
+    }
+
+    /**
+     * Процентиль цели за все окно, в наносекундах; 0, если записей меньше minCount.
+     * Гистограмма для цели не создается
+     */
+    public long percentileNanos(String target, double percentile, long minCount) {
+        LatencyHistogram histogram = histograms.get(target);
+        return histogram == null ? 0 : histogram.percentileNanos(percentile, minCount);
+    }
+
+    public void remove(String target) {
+        histograms.remove(target);
+    }
+
+    public int getTargetCount() {
+        return histograms.size();
+    }
+}
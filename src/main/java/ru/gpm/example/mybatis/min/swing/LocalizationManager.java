@@ -2,30 +2,58 @@ package ru.gpm.example.mybatis.min.swing;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 /**
- * Менеджер локализации для поддержки многоязычности
+ * Менеджер локализации для поддержки многоязычности.
+ * <p>
+ * Строки текущего языка хранятся в неизменяемой таблице вместе с заранее разобранными
+ * шаблонами сообщений. Чтение не требует блокировок и безопасно из любых потоков,
+ * а смена языка подменяет таблицу целиком одной volatile-записью.
  */
 public class LocalizationManager {
-    private static LocalizationManager instance;
-    private Properties properties;
-    private String currentLanguage;
+    private volatile Table table;
+    
+    /**
+     * Неизменяемая таблица строк одного языка
+     */
+    private static final class Table {
+        final String language;
+        final Map<String, String> strings;
+        final Map<String, MessageTemplate> templates;
+        
+        Table(String language, Map<String, String> strings, Map<String, MessageTemplate> templates) {
+            this.language = language;
+            this.strings = strings;
+            this.templates = templates;
+        }
+    }
+    
+    private static class Holder {
+        private static final LocalizationManager INSTANCE = new LocalizationManager();
+    }
     
     private LocalizationManager() {
-        loadConfiguration();
-        loadLanguageResources();
+        Properties configuration = loadConfiguration();
+        table = loadTable(configuration, configuration.getProperty("app.language", "en"));
     }
     
     public static LocalizationManager getInstance() {
-        if (instance == null) {
-            instance = new LocalizationManager();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
     
-    private void loadConfiguration() {
-        properties = new Properties();
+    /**
+     * Переключает язык: новая таблица полностью готовится заранее и подменяется атомарно
+     * @param language код языка (en, ru)
+     */
+    public void setLanguage(String language) {
+        table = loadTable(loadConfiguration(), language);
+    }
+    
+    private Properties loadConfiguration() {
+        Properties properties = new Properties();
         try (InputStream input = getClass().getClassLoader().getResourceAsStream("plugin.properties")) {
             if (input != null) {
                 properties.load(input);
@@ -33,12 +61,25 @@ public class LocalizationManager {
         } catch (IOException e) {
             System.err.println("Error loading plugin.properties: " + e.getMessage());
         }
+        return properties;
+    }
+    
+    private Table loadTable(Properties properties, String language) {
+        loadLanguageResources(properties, language);
         
-        currentLanguage = properties.getProperty("app.language", "en");
+        boolean asciiDigits = MessageTemplate.defaultLocaleUsesAsciiDigits();
+        Map<String, String> strings = new HashMap<>();
+        Map<String, MessageTemplate> templates = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            strings.put(key, value);
+            templates.put(key, MessageTemplate.compile(value, asciiDigits));
+        }
+        return new Table(language, Map.copyOf(strings), Map.copyOf(templates));
     }
     
-    private void loadLanguageResources() {
-        String languageFile = "messages_" + currentLanguage + ".properties";
+    private void loadLanguageResources(Properties properties, String language) {
+        String languageFile = "messages_" + language + ".properties";
         Properties languageProps = new Properties();
         
         try (InputStream input = getClass().getClassLoader().getResourceAsStream(languageFile)) {
@@ -48,20 +89,22 @@ public class LocalizationManager {
                 properties.putAll(languageProps);
             } else {
                 System.err.println("Language file not found: " + languageFile + ", using English");
-                loadDefaultEnglish();
+                loadDefaultEnglish(properties);
             }
         } catch (IOException e) {
             System.err.println("Error loading language file: " + e.getMessage());
-            loadDefaultEnglish();
+            loadDefaultEnglish(properties);
         }
     }
     
-    private void loadDefaultEnglish() {
+    private void loadDefaultEnglish(Properties properties) {
         // Загружаем английские переводы по умолчанию
         properties.setProperty("app.title", "Website Availability Checker");
         properties.setProperty("button.check.website", "Check Website Availability");
         properties.setProperty("button.show.demo", "Show Demo ProgressBar");
         properties.setProperty("button.close.signal", "Close by Signal");
+        properties.setProperty("button.results.view", "Monitoring Results");
+        properties.setProperty("button.edt.stats", "EDT Responsiveness");
         properties.setProperty("status.ready", "Enter website URL to check");
         properties.setProperty("status.checking", "Checking website availability");
         properties.setProperty("status.completed", "Check completed");
@@ -79,6 +122,11 @@ public class LocalizationManager {
         properties.setProperty("dialog.check.title", "Website Availability Check");
         properties.setProperty("dialog.check.checking", "Checking...");
         properties.setProperty("dialog.check.status", "Checking website availability");
+        properties.setProperty("dialog.check.phase.resolving", "Resolving host...");
+        properties.setProperty("dialog.check.phase.connecting", "Connecting...");
+        properties.setProperty("dialog.check.phase.tls", "TLS handshake...");
+        properties.setProperty("dialog.check.phase.awaiting.headers", "Waiting for response...");
+        properties.setProperty("dialog.check.phase.done", "Done");
         
         // Результаты проверки
         properties.setProperty("result.available.title", "Website Available");
@@ -86,7 +134,13 @@ public class LocalizationManager {
         properties.setProperty("result.url", "URL");
         properties.setProperty("result.status", "Result");
         properties.setProperty("result.response.time", "Response Time");
-        properties.setProperty("result.timeout", "Check interrupted: timeout exceeded (30 seconds)");
+        properties.setProperty("result.timeout", "Check interrupted: timeout exceeded (%d s)");
+        properties.setProperty("result.unit.ms", "ms");
+        properties.setProperty("result.timing", "Timing breakdown");
+        properties.setProperty("result.timing.dns", "DNS lookup");
+        properties.setProperty("result.timing.connect", "TCP connect");
+        properties.setProperty("result.timing.tls", "TLS handshake");
+        properties.setProperty("result.timing.ttfb", "Time to first byte");
         
         // Прогресс диалог
         properties.setProperty("progress.title", "Please wait...");
@@ -98,26 +152,61 @@ public class LocalizationManager {
         properties.setProperty("error.timeout", "Website unavailable: timeout exceeded");
         properties.setProperty("error.io", "Website unavailable: I/O error");
         properties.setProperty("error.unexpected", "Website unavailable: unexpected error");
+        
+        // Окно результатов мониторинга
+        properties.setProperty("results.title", "Monitoring Results");
+        properties.setProperty("results.add", "Add");
+        properties.setProperty("results.load", "Load from File...");
+        properties.setProperty("results.filter", "Filter");
+        properties.setProperty("results.count", "Targets: %d");
+        properties.setProperty("results.load.error", "Cannot read file: %s");
+        properties.setProperty("results.column.url", "URL");
+        properties.setProperty("results.column.outcome", "Result");
+        properties.setProperty("results.column.status", "Code");
+        properties.setProperty("results.column.response.time", "Time, ms");
+        properties.setProperty("results.column.checked", "Checked");
+        properties.setProperty("results.outcome.available", "Available");
+        properties.setProperty("results.outcome.http.error", "HTTP error");
+        properties.setProperty("results.outcome.unknown.host", "Unknown host");
+        properties.setProperty("results.outcome.connection.error", "Connection error");
+        properties.setProperty("results.outcome.timeout", "Timeout");
+        properties.setProperty("results.outcome.io.error", "I/O error");
+        properties.setProperty("results.outcome.unexpected", "Unexpected error");
+        properties.setProperty("results.outcome.content.mismatch", "Content mismatch");
+        
+        // Наблюдение за EDT
+        properties.setProperty("edt.title", "EDT Responsiveness");
+        properties.setProperty("edt.threshold", "Long task threshold: %d ms");
+        properties.setProperty("edt.dispatch.latency", "Dispatch latency, ms: p50 %.1f, p99 %.1f, max %.1f");
+        properties.setProperty("edt.task.duration", "Event duration, ms: p50 %.1f, p99 %.1f, max %.1f");
+        properties.setProperty("edt.long.tasks", "Long events: %d, stack captures: %d");
+        properties.setProperty("edt.janky.frames", "Dropped animation frames: %d");
+        properties.setProperty("edt.last.stall", "Last stall at %s, blocked for %d ms:");
+        properties.setProperty("edt.no.stalls", "No stalls captured");
     }
     
     public String getString(String key) {
-        return properties.getProperty(key, key);
+        return table.strings.getOrDefault(key, key);
     }
     
     public String getString(String key, Object... args) {
-        String template = getString(key);
-        return String.format(template, args);
+        MessageTemplate template = table.templates.get(key);
+        if (template == null) {
+            // Как и раньше, ключ без перевода используется как шаблон
+            return String.format(key, args);
+        }
+        return template.format(args);
     }
     
     public String getCurrentLanguage() {
-        return currentLanguage;
+        return table.language;
     }
     
     public boolean isRussian() {
-        return "ru".equals(currentLanguage);
+        return "ru".equals(getCurrentLanguage());
     }
     
     public boolean isEnglish() {
-        return "en".equals(currentLanguage);
+        return "en".equals(getCurrentLanguage());
     }
 }
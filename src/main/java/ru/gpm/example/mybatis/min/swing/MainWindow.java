@@ -10,10 +10,20 @@ import java.util.concurrent.CompletableFuture;
  * Главное окно приложения для проверки доступности веб-сайтов
  */
 public class MainWindow extends JFrame {
+    // Включает EdtWatchdog: -Dcursorbar.edt.watchdog=true, порог в мс - cursorbar.edt.threshold,
+    // вывод стеков зависаний в stderr - cursorbar.edt.stacks=true
+    static final String WATCHDOG_PROPERTY = "cursorbar.edt.watchdog";
+    static final String WATCHDOG_THRESHOLD_PROPERTY = "cursorbar.edt.threshold";
+    static final String WATCHDOG_STACKS_PROPERTY = "cursorbar.edt.stacks";
+
     private WebsiteCheckDialog websiteCheckDialog;
     private JButton checkWebsiteButton;
     private JButton showProgressButton;
     private JButton signalCloseButton;
+    private JButton resultsViewButton;
+    private JButton edtStatsButton;
+    private ResultsWindow resultsWindow;
+    private JDialog edtStatsDialog;
     private JLabel statusLabel;
     private LocalizationManager localization;
 
@@ -34,6 +44,9 @@ public class MainWindow extends JFrame {
         showProgressButton = new JButton(localization.getString("button.show.demo"));
         signalCloseButton = new JButton(localization.getString("button.close.signal"));
         signalCloseButton.setEnabled(false);
+        resultsViewButton = new JButton(localization.getString("button.results.view"));
+        edtStatsButton = new JButton(localization.getString("button.edt.stats"));
+        edtStatsButton.setVisible(EdtWatchdog.getInstalled() != null);
         
         statusLabel = new JLabel(localization.getString("status.ready"), JLabel.CENTER);
         statusLabel.setFont(new Font("Arial", Font.PLAIN, 12));
@@ -46,6 +59,8 @@ public class MainWindow extends JFrame {
         buttonPanel.add(checkWebsiteButton);
         buttonPanel.add(showProgressButton);
         buttonPanel.add(signalCloseButton);
+        buttonPanel.add(resultsViewButton);
+        buttonPanel.add(edtStatsButton);
         
         JPanel contentPanel = new JPanel(new BorderLayout());
         contentPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -76,6 +91,20 @@ public class MainWindow extends JFrame {
                 signalCloseProgressDialog();
             }
         });
+
+        resultsViewButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showResultsWindow();
+            }
+        });
+
+        edtStatsButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showEdtStats();
+            }
+        });
     }
 
     private void showWebsiteCheckDialog() {
@@ -128,6 +157,29 @@ public class MainWindow extends JFrame {
         });
     }
 
+    private void showResultsWindow() {
+        // Окно немодальное и одно на приложение: повторное нажатие выводит его на передний план
+        if (resultsWindow == null || !resultsWindow.isDisplayable()) {
+            resultsWindow = new ResultsWindow();
+            resultsWindow.setLocationRelativeTo(this);
+        }
+        resultsWindow.setVisible(true);
+        resultsWindow.toFront();
+    }
+
+    private void showEdtStats() {
+        // Как и окно результатов - немодальное и одно на приложение
+        if (edtStatsDialog == null || !edtStatsDialog.isDisplayable()) {
+            edtStatsDialog = new JDialog(this, localization.getString("edt.title"), false);
+            edtStatsDialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+            edtStatsDialog.add(new EdtStatsPanel(EdtWatchdog.getInstalled()));
+            edtStatsDialog.pack();
+            edtStatsDialog.setLocationRelativeTo(this);
+        }
+        edtStatsDialog.setVisible(true);
+        edtStatsDialog.toFront();
+    }
+
     private void signalCloseProgressDialog() {
         // Эта функция теперь не используется для проверки сайтов
         // так как проверка завершается автоматически
@@ -142,6 +194,12 @@ public class MainWindow extends JFrame {
             e.printStackTrace();
         }
 
+        // Наблюдение за EDT ставится до первого окна, чтобы замерять все события
+        if (Boolean.getBoolean(WATCHDOG_PROPERTY)) {
+            EdtWatchdog.install(Long.getLong(WATCHDOG_THRESHOLD_PROPERTY, EdtWatchdog.DEFAULT_THRESHOLD_MILLIS),
+                Boolean.getBoolean(WATCHDOG_STACKS_PROPERTY));
+        }
+
         SwingUtilities.invokeLater(() -> {
             new MainWindow().setVisible(true);
         });
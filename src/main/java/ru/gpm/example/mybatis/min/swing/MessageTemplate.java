@@ -0,0 +1,147 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Заранее разобранный шаблон сообщения в синтаксисе String.format.
+ * <p>
+ * Простые спецификаторы %s, %d, %n и %% подставляются напрямую, без повторного
+ * разбора шаблона. Шаблоны с флагами, шириной, точностью или другими преобразованиями,
+ * а также аргументы неподходящего типа обрабатываются через String.format,
+ * поэтому результат и исключения совпадают с исходным поведением.
+ */
+final class MessageTemplate {
+    private static final byte LITERAL = 0;
+    private static final byte STRING = 1;
+    private static final byte DECIMAL = 2;
+
+    private final String pattern;
+    // null, если шаблон нельзя обработать напрямую
+    private final byte[] kinds;
+    private final String[] literals;
+    private final int argumentCount;
+    private final int literalLength;
+
+    private MessageTemplate(String pattern, byte[] kinds, String[] literals, int argumentCount, int literalLength) {
+        this.pattern = pattern;
+        this.kinds = kinds;
+        this.literals = literals;
+        this.argumentCount = argumentCount;
+        this.literalLength = literalLength;
+    }
+
+    /**
+     * Разбирает шаблон
+     * @param pattern шаблон в синтаксисе String.format
+     * @param asciiDigits true, если локаль форматирования использует цифры 0-9;
+     *                    иначе %d форматируется через String.format
+     */
+    static MessageTemplate compile(String pattern, boolean asciiDigits) {
+        List<Byte> kinds = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int arguments = 0;
+        int literalLength = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (i + 1 >= pattern.length()) {
+                return fallback(pattern);
+            }
+            char conversion = pattern.charAt(++i);
+            if (conversion == '%') {
+                literal.append('%');
+            } else if (conversion == 'n') {
+                literal.append(System.lineSeparator());
+            } else if (conversion == 's' || (conversion == 'd' && asciiDigits)) {
+                if (literal.length() > 0) {
+                    kinds.add(LITERAL);
+                    literals.add(literal.toString());
+                    literalLength += literal.length();
+                    literal.setLength(0);
+                }
+                kinds.add(conversion == 's' ? STRING : DECIMAL);
+                literals.add(null);
+                arguments++;
+            } else {
+                return fallback(pattern);
+            }
+        }
+        if (literal.length() > 0) {
+            kinds.add(LITERAL);
+            literals.add(literal.toString());
+            literalLength += literal.length();
+        }
+        byte[] kindArray = new byte[kinds.size()];
+        for (int i = 0; i < kindArray.length; i++) {
+            kindArray[i] = kinds.get(i);
+        }
+        return new MessageTemplate(pattern, kindArray, literals.toArray(new String[0]), arguments, literalLength);
+    }
+
+    private static MessageTemplate fallback(String pattern) {
+        return new MessageTemplate(pattern, null, null, 0, 0);
+    }
+
+    /**
+     * Проверяет, что локаль форматирования по умолчанию использует цифры 0-9
+     */
+    static boolean defaultLocaleUsesAsciiDigits() {
+        return DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getZeroDigit() == '0';
+    }
+
+    String format(Object... args) {
+        if (kinds == null || args == null || args.length < argumentCount || !argumentsSupported(args)) {
+            return String.format(pattern, args);
+        }
+        StringBuilder result = new StringBuilder(literalLength + argumentCount * 8);
+        int argument = 0;
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case LITERAL:
+                    result.append(literals[i]);
+                    break;
+                case STRING:
+                    result.append(args[argument++]);
+                    break;
+                default:
+                    result.append(((Number) args[argument++]).longValue());
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * %d принимает только целые числа; %s - любые значения, кроме Formattable
+     */
+    private boolean argumentsSupported(Object[] args) {
+        int argument = 0;
+        for (byte kind : kinds) {
+            if (kind == LITERAL) {
+                continue;
+            }
+            Object value = args[argument++];
+            if (kind == DECIMAL) {
+                if (!(value instanceof Integer || value instanceof Long
+                        || value instanceof Short || value instanceof Byte)) {
+                    return false;
+                }
+            } else if (value instanceof Formattable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String getPattern() {
+        return pattern;
+    }
+}
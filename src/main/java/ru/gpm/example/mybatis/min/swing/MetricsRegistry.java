@@ -0,0 +1,172 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Реестр метрик приложения: счетчики и вычисляемые значения (gauge) по именам.
+ * <p>
+ * Счетчики - LongAdder: запись распределяется по ячейкам и не создает конкуренции
+ * между потоками проверок; сумма считается только при чтении. Метрики публикуются
+ * одним MBean {@value #OBJECT_NAME} (атрибут на метрику) и доступны текстовым снимком.
+ */
+public class MetricsRegistry {
+    public static final String OBJECT_NAME = "ru.gpm.example.mybatis.min.swing:type=Metrics";
+
+    private static class SharedHolder {
+        private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+        static {
+            INSTANCE.registerMBean(OBJECT_NAME);
+        }
+    }
+
+    // Значение метрики: LongAdder или DoubleSupplier; сортировка по имени для снимка
+    private final ConcurrentSkipListMap<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * Общий реестр, опубликованный в платформенном MBeanServer
+     */
+    public static MetricsRegistry shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Счетчик с заданным именем; создается при первом обращении
+     */
+    public LongAdder counter(String name) {
+        Object metric = metrics.computeIfAbsent(name, key -> new LongAdder());
+        if (!(metric instanceof LongAdder)) {
+            throw new IllegalArgumentException("Metric is not a counter: " + name);
+        }
+        return (LongAdder) metric;
+    }
+
+    /**
+     * Регистрирует вычисляемое значение; значение читается при каждом снимке,
+     * поэтому функция должна быть быстрой и потокобезопасной
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * Текущее значение метрики или NaN, если метрики нет
+     */
+    public double value(String name) {
+        return valueOf(metrics.get(name));
+    }
+
+    private static double valueOf(Object metric) {
+        if (metric instanceof LongAdder) {
+            return ((LongAdder) metric).sum();
+        }
+        if (metric instanceof DoubleSupplier) {
+            return ((DoubleSupplier) metric).getAsDouble();
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Снимок всех метрик в виде строк "имя значение", отсортированных по имени
+     */
+    public String snapshot() {
+        StringBuilder text = new StringBuilder(metrics.size() * 32);
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            text.append(entry.getKey()).append(' ');
+            Object metric = entry.getValue();
+            if (metric instanceof LongAdder) {
+                text.append(((LongAdder) metric).sum());
+            } else {
+                text.append(String.format(Locale.ROOT, "%.3f", valueOf(metric)));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Публикует реестр в платформенном MBeanServer; ошибка публикации не мешает работе
+     * @return true, если MBean зарегистрирован
+     */
+    public boolean registerMBean(String objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(objectName));
+            return true;
+        } catch (JMException | SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * MBean, атрибуты которого - текущие метрики реестра; только чтение
+     */
+    private final class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object metric = metrics.get(attribute);
+            if (metric instanceof LongAdder) {
+                return ((LongAdder) metric).sum();
+            }
+            if (metric instanceof DoubleSupplier) {
+                return ((DoubleSupplier) metric).getAsDouble();
+            }
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String name : attributes) {
+                try {
+                    list.add(new Attribute(name, getAttribute(name)));
+                } catch (AttributeNotFoundException e) {
+                    // Отсутствующие атрибуты пропускаются, как требует DynamicMBean
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            // Операций нет; JMX-клиенты ожидают ReflectionException, а не RuntimeException
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+                String type = entry.getValue() instanceof LongAdder ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), type, entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(MetricsRegistry.class.getName(), "Application metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Планировщик непрерывного мониторинга на основе хешированного колеса таймеров.
+ * У каждой цели свой интервал и разброс (jitter); первые проверки равномерно
+ * распределены по интервалу, поэтому проверки не запускаются пачками.
+ * За один тик обрабатывается только одна ячейка колеса, а добавление и удаление целей
+ * передаются потоку тиков через очереди и не останавливают остальные проверки.
+ * Результаты проверок передаются в CheckHistory.shared().
+ */
+public class MonitoringScheduler implements AutoCloseable {
+    public static final long DEFAULT_TICK_MILLIS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    /**
+     * Цель мониторинга
+     */
+    public static final class Target {
+        private final int id;
+        private final String url;
+        private final long intervalMillis;
+        private final long jitterMillis;
+
+        private Target(int id, String url, long intervalMillis, long jitterMillis) {
+            this.id = id;
+            this.url = url;
+            this.intervalMillis = intervalMillis;
+            this.jitterMillis = jitterMillis;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public long getJitterMillis() {
+            return jitterMillis;
+        }
+    }
+
+    /**
+     * Запись цели в ячейке колеса. Поля кроме флагов меняет только поток тиков.
+     */
+    private static final class Entry {
+        final Target target;
+        // Ключ цели в CheckHistory: URL нормализуется один раз, а не при каждом результате
+        final String historyUrl;
+        final AtomicBoolean inFlight = new AtomicBoolean();
+        volatile boolean cancelled;
+        long remainingRounds;
+        int bucket = -1;
+        Entry prev;
+        Entry next;
+
+        Entry(Target target) {
+            this.target = target;
+            this.historyUrl = WebsiteChecker.normalizeUrl(target.getUrl());
+        }
+    }
+
+    private final BulkWebsiteChecker checker;
+    private final boolean ownsChecker;
+    private final BiConsumer<Target, WebsiteChecker.CheckResult> listener;
+    private final long tickNanos;
+    private final long tickMillis;
+    private final Entry[] wheel;
+    private final int mask;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> pendingAdds = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Entry> pendingRemovals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Thread ticker;
+    private volatile boolean running;
+    private long tick;
+
+    /**
+     * @param maxInFlight максимальное число одновременно выполняющихся проверок
+     * @param listener получает результаты проверок из рабочих потоков
+     */
+    public MonitoringScheduler(int maxInFlight, BiConsumer<Target, WebsiteChecker.CheckResult> listener) {
+        this(new BulkWebsiteChecker(maxInFlight, url -> AdaptiveTimeouts.shared().check(url, ProbeMode.GET)), true,
+            listener, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param checker движок проверок, задающий лимит одновременных проверок
+     * @param listener получает результаты проверок из рабочих потоков
+     * @param tickMillis длительность тика колеса - точность планирования
+     * @param wheelSize число ячеек колеса, округляется вверх до степени двойки
+     */
+    public MonitoringScheduler(BulkWebsiteChecker checker, BiConsumer<Target, WebsiteChecker.CheckResult> listener,
+                               long tickMillis, int wheelSize) {
+        this(checker, false, listener, tickMillis, wheelSize);
+    }
+
+    private MonitoringScheduler(BulkWebsiteChecker checker, boolean ownsChecker,
+                                BiConsumer<Target, WebsiteChecker.CheckResult> listener,
+                                long tickMillis, int wheelSize) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        if (wheelSize < 1 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        this.checker = checker;
+        this.ownsChecker = ownsChecker;
+        this.listener = listener;
+        this.tickMillis = tickMillis;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Entry[size];
+        this.mask = size - 1;
+        this.ticker = new Thread(this::runTicks, "monitoring-scheduler");
+        this.ticker.setDaemon(true);
+    }
+
+    /**
+     * Запускает поток тиков
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            ticker.start();
+        }
+    }
+
+    /**
+     * Добавляет цель мониторинга. Первая проверка выполняется в случайный момент
+     * внутри первого интервала.
+     * @param url URL для проверки
+     * @param intervalMillis интервал между проверками
+     * @param jitterMillis максимальное случайное отклонение интервала в обе стороны
+     * @return добавленная цель
+     */
+    public Target addTarget(String url, long intervalMillis, long jitterMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        if (jitterMillis < 0 || jitterMillis >= intervalMillis) {
+            throw new IllegalArgumentException("jitterMillis must be in [0, intervalMillis): " + jitterMillis);
+        }
+        Target target = new Target(nextId.incrementAndGet(), url, intervalMillis, jitterMillis);
+        Entry entry = new Entry(target);
+        entries.put(target.getId(), entry);
+        pendingAdds.add(entry);
+        return target;
+    }
+
+    /**
+     * Удаляет цель. Уже запущенная проверка завершится, но ее результат не будет передан слушателю.
+     * @return true, если цель была зарегистрирована
+     */
+    public boolean removeTarget(int targetId) {
+        Entry entry = entries.remove(targetId);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        pendingRemovals.add(entry);
+        return true;
+    }
+
+    public int getTargetCount() {
+        return entries.size();
+    }
+
+    private void runTicks() {
+        long startTime = System.nanoTime();
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            processRemovals();
+            expireBucket((int) (tick & mask));
+            // Новые цели размещаются после обработки ячейки, чтобы не сработать раньше срока
+            processAdds();
+            tick++;
+        }
+    }
+
+    private void processAdds() {
+        Entry entry;
+        while ((entry = pendingAdds.poll()) != null) {
+            if (!entry.cancelled) {
+                long interval = entry.target.getIntervalMillis();
+                schedule(entry, ThreadLocalRandom.current().nextLong(interval));
+            }
+        }
+    }
+
+    private void processRemovals() {
+        Entry entry;
+        while ((entry = pendingRemovals.poll()) != null) {
+            if (entry.bucket >= 0) {
+                unlink(entry);
+            }
+        }
+    }
+
+    private void expireBucket(int bucket) {
+        Entry entry = wheel[bucket];
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+            } else {
+                unlink(entry);
+                fire(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void fire(Entry entry) {
+        if (entry.cancelled) {
+            return;
+        }
+        if (!entry.inFlight.compareAndSet(false, true)) {
+            // Предыдущая проверка еще идет - пропускаем этот запуск, чтобы не копить очередь
+            schedule(entry, nextDelay(entry.target));
+            return;
+        }
+        CompletableFuture<WebsiteChecker.CheckResult> future = checker.trySubmit(entry.target.getUrl());
+        if (future == null) {
+            // Лимит одновременных проверок исчерпан - повторяем на следующем тике
+            entry.inFlight.set(false);
+            schedule(entry, tickMillis);
+            return;
+        }
+        schedule(entry, nextDelay(entry.target));
+        future.whenComplete((result, error) -> {
+            entry.inFlight.set(false);
+            if (error == null) {
+                CheckHistory.shared().record(entry.historyUrl, result);
+                if (!entry.cancelled) {
+                    listener.accept(entry.target, result);
+                }
+            }
+        });
+    }
+
+    private static long nextDelay(Target target) {
+        long jitter = target.getJitterMillis();
+        if (jitter == 0) {
+            return target.getIntervalMillis();
+        }
+        return target.getIntervalMillis() + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+    }
+
+    /**
+     * Помещает запись в ячейку, соответствующую задержке от текущего тика
+     */
+    private void schedule(Entry entry, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long expiryTick = tick + ticks;
+        // Текущая ячейка уже обрабатывается, поэтому отсчет кругов начинается со следующего тика
+        entry.remainingRounds = (ticks - 1) / wheel.length;
+        int bucket = (int) (expiryTick & mask);
+        entry.bucket = bucket;
+        entry.prev = null;
+        entry.next = wheel[bucket];
+        if (wheel[bucket] != null) {
+            wheel[bucket].prev = entry;
+        }
+        wheel[bucket] = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            wheel[entry.bucket] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+        entry.bucket = -1;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+        if (ownsChecker) {
+            checker.close();
+        }
+    }
+}
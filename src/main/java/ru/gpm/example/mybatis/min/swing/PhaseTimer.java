@@ -0,0 +1,102 @@
+package ru.gpm.example.mybatis.min.swing;
+
+/**
+ * Отметки времени фаз одной проверки, измеренные через System.nanoTime().
+ * Каждая отметка также сообщает о начале следующей фазы получателю прогресса.
+ * Используется одним потоком проверки.
+ */
+final class PhaseTimer {
+    static final long NOT_MEASURED = -1;
+
+    private final WebsiteChecker.ProgressListener progress;
+    private final long start = System.nanoTime();
+    private long resolved = NOT_MEASURED;
+    // Начало подключения текущего запроса: после разрешения имени или при повторном запросе
+    private long connectStart = NOT_MEASURED;
+    private long tcpConnected = NOT_MEASURED;
+    private long connected = NOT_MEASURED;
+    private long headers = NOT_MEASURED;
+
+    /**
+     * Начинает отсчет; проверка начинается с разрешения имени хоста
+     */
+    PhaseTimer(WebsiteChecker.ProgressListener progress) {
+        this.progress = progress;
+        progress.onPhase(WebsiteChecker.Phase.RESOLVING);
+    }
+
+    /**
+     * Начало нового запроса (например, GET после отклоненного HEAD).
+     * Подключение отсчитывается заново, чтобы не включать время предыдущего запроса
+     */
+    void restartRequest() {
+        connectStart = System.nanoTime();
+        tcpConnected = NOT_MEASURED;
+        connected = NOT_MEASURED;
+        headers = NOT_MEASURED;
+        progress.onPhase(WebsiteChecker.Phase.CONNECTING);
+    }
+
+    void markResolved() {
+        resolved = System.nanoTime();
+        connectStart = resolved;
+        progress.onPhase(WebsiteChecker.Phase.CONNECTING);
+    }
+
+    /**
+     * TCP соединение установлено, начинается TLS рукопожатие
+     */
+    void markTcpConnected() {
+        tcpConnected = System.nanoTime();
+        progress.onPhase(WebsiteChecker.Phase.TLS);
+    }
+
+    /**
+     * Соединение (включая TLS) готово к отправке запроса
+     */
+    void markConnected() {
+        connected = System.nanoTime();
+        progress.onPhase(WebsiteChecker.Phase.AWAITING_HEADERS);
+    }
+
+    void markHeaders() {
+        headers = System.nanoTime();
+    }
+
+    /**
+     * Проверка завершена, успешно или с ошибкой
+     */
+    void markDone() {
+        progress.onPhase(WebsiteChecker.Phase.DONE);
+    }
+
+    long dnsNanos() {
+        return span(start, resolved);
+    }
+
+    long connectNanos() {
+        return span(connectStart, tcpConnected != NOT_MEASURED ? tcpConnected : connected);
+    }
+
+    long tlsNanos() {
+        return span(tcpConnected, connected);
+    }
+
+    long ttfbNanos() {
+        return span(connected, headers);
+    }
+
+    /**
+     * Полное время от начала проверки до текущего момента
+     */
+    long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    private static long span(long from, long to) {
+        if (from == NOT_MEASURED || to == NOT_MEASURED) {
+            return NOT_MEASURED;
+        }
+        return to - from;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.gpm.example.mybatis.min.swing;
+
+/**
+ * Способ зондирования сайта при проверке доступности
+ */
+public enum ProbeMode {
+    /**
+     * Обычный GET-запрос, как в браузере
+     */
+    GET,
+
+    /**
+     * Сначала HEAD-запрос; если сервер отвечает 405 или 501, выполняется GET,
+     * который прерывается сразу после получения заголовков. Тело ответа не читается.
+     */
+    HEAD_FIRST,
+
+    /**
+     * Только TCP подключение к порту сайта, без HTTP запроса; см. TcpProbe
+     */
+    TCP_CONNECT;
+
+    /**
+     * Проверяет, что сервер не поддерживает HEAD и нужен повтор через GET
+     */
+    static boolean isHeadRejected(int responseCode) {
+        return responseCode == 405 || responseCode == 501;
+    }
+}
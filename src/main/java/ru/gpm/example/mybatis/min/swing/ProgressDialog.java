@@ -11,12 +11,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class ProgressDialog extends JDialog {
     private CircularProgressBar progressBar;
-    private Timer animationTimer;
+    private AnimationClock.FrameListener animationListener;
+    private long animationStartNanos;
     private Timer timeoutTimer;
     private AtomicBoolean shouldClose = new AtomicBoolean(false);
     private int animationStep = 0;
     private static final int ANIMATION_STEPS = 100;
     private static final int TIMEOUT_SECONDS = 30;
+    private static final long ANIMATION_CYCLE_NANOS = TIMEOUT_SECONDS * 1_000_000_000L;
     private LocalizationManager localization;
 
     public ProgressDialog(Frame parent, String title) {
@@ -58,23 +60,29 @@ public class ProgressDialog extends JDialog {
     }
 
     private void startAnimation() {
-        // Изменяем интервал так, чтобы один цикл занимал 30 секунд
-        // 30 секунд = 30000ms, делим на 100 шагов = 300ms на шаг
-        animationTimer = new Timer(300, new ActionListener() {
+        // Один цикл прогресса занимает 30 секунд; кадры приходят от общего AnimationClock,
+        // поэтому все открытые индикаторы обновляются за один проход EDT
+        animationStartNanos = System.nanoTime();
+        animationListener = new AnimationClock.FrameListener() {
             @Override
-            public void actionPerformed(ActionEvent e) {
+            public void onFrame(long frameNanos) {
                 if (shouldClose.get()) {
                     closeDialog();
                     return;
                 }
                 
-                animationStep = (animationStep + 1) % ANIMATION_STEPS;
+                long elapsed = (frameNanos - animationStartNanos) % ANIMATION_CYCLE_NANOS;
+                int step = (int) (elapsed * ANIMATION_STEPS / ANIMATION_CYCLE_NANOS);
+                if (step == animationStep) {
+                    return;
+                }
+                animationStep = step;
                 int progress = (animationStep * 100) / ANIMATION_STEPS;
                 progressBar.setProgress(progress);
                 progressBar.setText(String.format("%d%%", progress));
             }
-        });
-        animationTimer.start();
+        };
+        AnimationClock.getInstance().register(progressBar, animationListener);
     }
 
     private void startTimeoutTimer() {
@@ -96,8 +104,8 @@ public class ProgressDialog extends JDialog {
     }
 
     private void closeDialog() {
-        if (animationTimer != null) {
-            animationTimer.stop();
+        if (animationListener != null) {
+            AnimationClock.getInstance().unregister(animationListener);
         }
         if (timeoutTimer != null) {
             timeoutTimer.stop();
@@ -107,8 +115,8 @@ public class ProgressDialog extends JDialog {
 
     @Override
     public void dispose() {
-        if (animationTimer != null) {
-            animationTimer.stop();
+        if (animationListener != null) {
+            AnimationClock.getInstance().unregister(animationListener);
         }
         if (timeoutTimer != null) {
             timeoutTimer.stop();
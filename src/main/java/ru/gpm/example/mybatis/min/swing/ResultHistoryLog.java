@@ -0,0 +1,378 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Журнал истории проверок: только дозапись, записи фиксированного размера
+ * в отображаемых в память файлах-сегментах.
+ * <p>
+ * Запись не создает объектов - поля результата копируются абсолютными put-операциями.
+ * В заголовке сегмента хранятся число записей и диапазон времени, поэтому при выборке
+ * сегменты вне интервала пропускаются целиком, а в остальных сначала сравниваются
+ * только идентификатор цели и время записи.
+ * <p>
+ * Идентификаторы целей постоянны между запусками: соответствие строки цели и номера
+ * дописывается в файл targets.txt каталога. Каталог занимает один экземпляр журнала - повторное
+ * открытие, в том числе из другого процесса, завершается IOException.
+ */
+public class ResultHistoryLog implements AutoCloseable {
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    static final int RECORD_SIZE = 64;
+    static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x43424C47; // "CBLG"
+    private static final int VERSION = 1;
+    private static final String SEGMENT_PREFIX = "results-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String TARGETS_FILE = "targets.txt";
+    private static final String LOCK_FILE = "lock";
+
+    // Смещения полей заголовка сегмента
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_MIN_TIME = 24;
+    private static final int H_MAX_TIME = 32;
+
+    // Смещения полей записи
+    private static final int R_TIMESTAMP = 0;
+    private static final int R_TARGET = 8;
+    private static final int R_STATUS = 12;
+    private static final int R_OUTCOME = 14;
+    private static final int R_DNS = 16;
+    private static final int R_CONNECT = 24;
+    private static final int R_TLS = 32;
+    private static final int R_TTFB = 40;
+    private static final int R_TOTAL = 48;
+
+    /**
+     * Получатель записей при выборке. Поля передаются примитивами, без создания объектов.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(int targetId, long timestampMillis, int statusCode, WebsiteChecker.Outcome outcome,
+                   long dnsNanos, long connectNanos, long tlsNanos, long ttfbNanos, long totalNanos);
+    }
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final int maxSegments;
+    private final List<Path> segments = new ArrayList<>();
+    private final Map<String, Integer> targetIds = new HashMap<>();
+    private final FileChannel lockChannel;
+    private BufferedWriter targetsWriter;
+    private int nextTargetId = 1;
+    private MappedByteBuffer active;
+    private int activeCount;
+    // Емкость активного сегмента из его заголовка; у подхваченного сегмента может отличаться от recordsPerSegment
+    private int activeCapacity;
+    private long nextSegmentIndex;
+    private boolean closed;
+
+    public ResultHistoryLog(Path directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param directory каталог сегментов; существующие сегменты подхватываются, запись продолжается в последний
+     * @param recordsPerSegment число записей в одном сегменте
+     * @param maxSegments сколько сегментов хранить; самые старые удаляются при ротации
+     */
+    public ResultHistoryLog(Path directory, int recordsPerSegment, int maxSegments) throws IOException {
+        if (recordsPerSegment < 1 || (long) recordsPerSegment * RECORD_SIZE + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("recordsPerSegment out of range: " + recordsPerSegment);
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("maxSegments must be positive: " + maxSegments);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Каталог уже открыт в этом же процессе
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("History directory is already in use: " + directory);
+            }
+            openExistingSegments();
+            openTargets();
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+    }
+
+    private void openTargets() throws IOException {
+        Path path = directory.resolve(TARGETS_FILE);
+        if (Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    // Строка, оборванная при аварийном завершении, пропускается
+                    if (tab > 0) {
+                        int id = Integer.parseInt(line.substring(0, tab));
+                        targetIds.put(line.substring(tab + 1), id);
+                        nextTargetId = Math.max(nextTargetId, id + 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Corrupted target list: " + path, e);
+            }
+        }
+        targetsWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Постоянный идентификатор цели; новой цели назначается следующий номер
+     * @param target цель, например нормализованный URL (без перевода строки и табуляции)
+     */
+    public synchronized int targetId(String target) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Log is closed");
+        }
+        Integer id = targetIds.get(target);
+        if (id == null) {
+            id = nextTargetId++;
+            targetsWriter.write(id + "\t" + target + "\n");
+            targetsWriter.flush();
+            targetIds.put(target, id);
+        }
+        return id;
+    }
+
+    private void openExistingSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        // Имена содержат номер с ведущими нулями, поэтому лексикографический порядок совпадает с порядком записи
+        Collections.sort(segments);
+        if (segments.isEmpty()) {
+            rotate();
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        nextSegmentIndex = segmentIndex(last) + 1;
+        MappedByteBuffer buffer = map(last, FileChannel.MapMode.READ_WRITE);
+        int count = buffer.getInt(H_COUNT);
+        int capacity = buffer.getInt(H_CAPACITY);
+        if (count < capacity && buffer.capacity() >= HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+            active = buffer;
+            activeCount = count;
+            activeCapacity = capacity;
+        } else {
+            rotate();
+        }
+    }
+
+    /**
+     * Дописывает результат проверки
+     * @param targetId идентификатор цели
+     * @param timestampMillis время проверки
+     * @param result результат проверки
+     */
+    public synchronized void append(int targetId, long timestampMillis, WebsiteChecker.CheckResult result)
+            throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Log is closed");
+        }
+        if (activeCount == activeCapacity) {
+            rotate();
+        }
+        MappedByteBuffer buffer = active;
+        int offset = HEADER_SIZE + activeCount * RECORD_SIZE;
+        buffer.putLong(offset + R_TIMESTAMP, timestampMillis);
+        buffer.putInt(offset + R_TARGET, targetId);
+        buffer.putShort(offset + R_STATUS, (short) result.getStatusCode());
+        buffer.put(offset + R_OUTCOME, (byte) result.getOutcome().ordinal());
+        buffer.putLong(offset + R_DNS, result.getDnsNanos());
+        buffer.putLong(offset + R_CONNECT, result.getConnectNanos());
+        buffer.putLong(offset + R_TLS, result.getTlsNanos());
+        buffer.putLong(offset + R_TTFB, result.getTtfbNanos());
+        buffer.putLong(offset + R_TOTAL, result.getTotalNanos());
+
+        if (activeCount == 0 || timestampMillis < buffer.getLong(H_MIN_TIME)) {
+            buffer.putLong(H_MIN_TIME, timestampMillis);
+        }
+        if (activeCount == 0 || timestampMillis > buffer.getLong(H_MAX_TIME)) {
+            buffer.putLong(H_MAX_TIME, timestampMillis);
+        }
+        // Счетчик обновляется последним: запись видна только после того, как заполнена целиком
+        activeCount++;
+        buffer.putInt(H_COUNT, activeCount);
+    }
+
+    /**
+     * Перебирает записи цели в интервале времени [fromMillis, toMillis] в порядке записи
+     * @return число найденных записей
+     */
+    public long scan(int targetId, long fromMillis, long toMillis, RecordVisitor visitor) throws IOException {
+        List<Path> snapshot;
+        MappedByteBuffer activeBuffer;
+        int activeRecords;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Log is closed");
+            }
+            snapshot = new ArrayList<>(segments);
+            activeBuffer = active;
+            activeRecords = activeCount;
+        }
+
+        long found = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            boolean isActive = i == snapshot.size() - 1;
+            MappedByteBuffer buffer;
+            int count;
+            if (isActive) {
+                buffer = activeBuffer;
+                count = activeRecords;
+            } else {
+                try {
+                    buffer = map(snapshot.get(i), FileChannel.MapMode.READ_ONLY);
+                } catch (NoSuchFileException e) {
+                    // Сегмент удален ротацией после снятия снимка
+                    continue;
+                }
+                count = buffer.getInt(H_COUNT);
+            }
+            if (count == 0 || buffer.getLong(H_MAX_TIME) < fromMillis || buffer.getLong(H_MIN_TIME) > toMillis) {
+                continue;
+            }
+            found += scanSegment(buffer, count, targetId, fromMillis, toMillis, visitor);
+        }
+        return found;
+    }
+
+    private static long scanSegment(MappedByteBuffer buffer, int count, int targetId, long fromMillis,
+                                    long toMillis, RecordVisitor visitor) {
+        long found = 0;
+        for (int i = 0; i < count; i++) {
+            int offset = HEADER_SIZE + i * RECORD_SIZE;
+            if (buffer.getInt(offset + R_TARGET) != targetId) {
+                continue;
+            }
+            long timestamp = buffer.getLong(offset + R_TIMESTAMP);
+            if (timestamp < fromMillis || timestamp > toMillis) {
+                continue;
+            }
+            visitor.visit(targetId, timestamp,
+                buffer.getShort(offset + R_STATUS) & 0xFFFF,
+                WebsiteChecker.Outcome.ofOrdinal(buffer.get(offset + R_OUTCOME)),
+                buffer.getLong(offset + R_DNS),
+                buffer.getLong(offset + R_CONNECT),
+                buffer.getLong(offset + R_TLS),
+                buffer.getLong(offset + R_TTFB),
+                buffer.getLong(offset + R_TOTAL));
+            found++;
+        }
+        return found;
+    }
+
+    /**
+     * Сбрасывает активный сегмент на диск
+     */
+    public synchronized void flush() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void rotate() throws IOException {
+        if (active != null) {
+            active.force();
+        }
+        Path path = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        long size = HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        active.order(ByteOrder.LITTLE_ENDIAN);
+        active.putInt(H_MAGIC, MAGIC);
+        active.putInt(H_VERSION, VERSION);
+        active.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        active.putInt(H_CAPACITY, recordsPerSegment);
+        active.putInt(H_COUNT, 0);
+        activeCount = 0;
+        activeCapacity = recordsPerSegment;
+        segments.add(path);
+
+        while (segments.size() > maxSegments) {
+            Files.deleteIfExists(segments.remove(0));
+        }
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+            ? new StandardOpenOption[] {StandardOpenOption.READ}
+            : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            buffer = channel.map(mode, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION
+                || buffer.getInt(H_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Not a result history segment: " + path);
+        }
+        return buffer;
+    }
+
+    private static long segmentIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            flush();
+            active = null;
+            closed = true;
+            try {
+                targetsWriter.close();
+            } finally {
+                // Закрытие канала снимает блокировку каталога
+                lockChannel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Модель таблицы результатов для большого числа целей мониторинга.
+ * <p>
+ * Данные хранятся по столбцам в примитивных массивах, разбитых на блоки фиксированного
+ * размера: блоки не перемещаются при росте, поэтому потоки проверок пишут результаты
+ * прямо в них и отмечают строку в битовой маске блока. EDT на каждом кадре AnimationClock
+ * собирает отмеченные строки и отправляет одно событие обновления на весь диапазон.
+ * <p>
+ * Сортировка и фильтрация выполняются в фоновом потоке по снимку столбца; EDT только
+ * подставляет готовую перестановку строк. Строки добавляются только из EDT.
+ * Значения одной строки, записанные во время чтения, могут кратковременно относиться
+ * к разным проверкам - строка снова отмечена и будет перерисована на следующем кадре.
+ */
+public class ResultsTableModel extends AbstractTableModel {
+    public static final int COLUMN_URL = 0;
+    public static final int COLUMN_OUTCOME = 1;
+    public static final int COLUMN_STATUS = 2;
+    public static final int COLUMN_RESPONSE_TIME = 3;
+    public static final int COLUMN_CHECKED_AT = 4;
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte NOT_CHECKED = -1;
+    // Как часто пересортировывать представление, пока меняются значения столбца сортировки
+    private static final long RESORT_INTERVAL_NANOS = 1_000_000_000L;
+
+    private static final String[] COLUMN_KEYS = {
+        "results.column.url",
+        "results.column.outcome",
+        "results.column.status",
+        "results.column.response.time",
+        "results.column.checked"
+    };
+
+    // Ключи названий категорий результата, по порядковому номеру Outcome
+    private static final String[] OUTCOME_KEYS = outcomeKeys();
+
+    private static final DateTimeFormatter TIME_FORMAT =
+        DateTimeFormatter.ofPattern("HH:mm:ss", Locale.ROOT).withZone(ZoneId.systemDefault());
+
+    /**
+     * Блок строк; массивы создаются один раз и не перемещаются
+     */
+    private static final class Chunk {
+        final String[] urls = new String[CHUNK_SIZE];
+        final byte[] outcomes = new byte[CHUNK_SIZE];
+        final short[] statuses = new short[CHUNK_SIZE];
+        final int[] responseMillis = new int[CHUNK_SIZE];
+        final long[] checkedAt = new long[CHUNK_SIZE];
+        final AtomicLongArray dirty = new AtomicLongArray(CHUNK_SIZE / 64);
+
+        Chunk() {
+            Arrays.fill(outcomes, NOT_CHECKED);
+        }
+    }
+
+    /**
+     * Перестановка строк для отображения
+     */
+    private static final class View {
+        final int[] viewToModel;
+        final int[] modelToView;
+
+        View(int[] viewToModel, int modelRows) {
+            this.viewToModel = viewToModel;
+            this.modelToView = new int[modelRows];
+            Arrays.fill(modelToView, -1);
+            for (int i = 0; i < viewToModel.length; i++) {
+                modelToView[viewToModel[i]] = i;
+            }
+        }
+    }
+
+    private final LocalizationManager localization = LocalizationManager.getInstance();
+    // Начало отсчета для ключа сортировки по времени проверки
+    private final long baseMillis = System.currentTimeMillis();
+    private final ExecutorService sortExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "results-sort");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AnimationClock.FrameListener flushListener = frameNanos -> flushUpdates();
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    // Поля ниже используются только в EDT
+    private int rowCount;
+    private View view;
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private String filter = "";
+    private int viewRequest;
+    private long lastSortNanos;
+
+    /**
+     * Подписывает модель на кадры, пока таблица отображается
+     */
+    public void attach(JTable table) {
+        AnimationClock.getInstance().register(table, flushListener);
+    }
+
+    public void detach() {
+        AnimationClock.getInstance().unregister(flushListener);
+        sortExecutor.shutdownNow();
+    }
+
+    /**
+     * Добавляет строки целей; вызывается из EDT
+     * @return номер первой добавленной строки модели
+     */
+    public int addRows(List<String> urls) {
+        int first = rowCount;
+        int required = (first + urls.size() + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        if (required > chunks.length) {
+            Chunk[] grown = Arrays.copyOf(chunks, required);
+            for (int i = chunks.length; i < required; i++) {
+                grown[i] = new Chunk();
+            }
+            chunks = grown;
+        }
+        Chunk[] current = chunks;
+        for (int i = 0; i < urls.size(); i++) {
+            int row = first + i;
+            current[row >>> CHUNK_BITS].urls[row & CHUNK_MASK] = urls.get(i);
+        }
+        rowCount = first + urls.size();
+        if (view == null) {
+            fireTableRowsInserted(first, rowCount - 1);
+        } else {
+            requestView();
+        }
+        return first;
+    }
+
+    /**
+     * Записывает результат проверки строки; вызывается из любого потока
+     */
+    public void publish(int row, WebsiteChecker.CheckResult result) {
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int index = row & CHUNK_MASK;
+        chunk.outcomes[index] = (byte) result.getOutcome().ordinal();
+        chunk.statuses[index] = (short) result.getStatusCode();
+        chunk.responseMillis[index] = (int) Math.min(Integer.MAX_VALUE, result.getResponseTime());
+        chunk.checkedAt[index] = System.currentTimeMillis();
+        // Установка бита публикует записанные значения для EDT
+        chunk.dirty.getAndAccumulate(index >>> 6, 1L << (index & 63), (bits, bit) -> bits | bit);
+    }
+
+    /**
+     * Собирает отмеченные строки и отправляет одно событие на диапазон их позиций в представлении
+     */
+    private void flushUpdates() {
+        Chunk[] current = chunks;
+        View currentView = view;
+        int firstDirty = Integer.MAX_VALUE;
+        int lastDirty = -1;
+        for (int c = 0; c < current.length; c++) {
+            AtomicLongArray dirty = current[c].dirty;
+            for (int w = 0; w < dirty.length(); w++) {
+                if (dirty.get(w) == 0) {
+                    continue;
+                }
+                long bits = dirty.getAndSet(w, 0);
+                while (bits != 0) {
+                    int row = (c << CHUNK_BITS) + (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    int viewRow = currentView == null ? row
+                        : row < currentView.modelToView.length ? currentView.modelToView[row] : -1;
+                    if (viewRow >= 0) {
+                        firstDirty = Math.min(firstDirty, viewRow);
+                        lastDirty = Math.max(lastDirty, viewRow);
+                    }
+                }
+            }
+        }
+        if (lastDirty >= 0) {
+            fireTableRowsUpdated(firstDirty, lastDirty);
+            if (sortColumn > COLUMN_URL && System.nanoTime() - lastSortNanos > RESORT_INTERVAL_NANOS) {
+                requestView();
+            }
+        }
+    }
+
+    /**
+     * Переключает сортировку по столбцу: по возрастанию, по убыванию, без сортировки
+     */
+    public void toggleSort(int column) {
+        if (sortColumn != column) {
+            sortColumn = column;
+            ascending = true;
+        } else if (ascending) {
+            ascending = false;
+        } else {
+            sortColumn = -1;
+        }
+        requestView();
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /**
+     * Оставляет строки, URL которых содержит текст (без учета регистра)
+     */
+    public void setFilter(String filter) {
+        this.filter = filter.trim().toLowerCase(Locale.ROOT);
+        requestView();
+    }
+
+    /**
+     * Запускает пересчет представления в фоне; устаревшие результаты отбрасываются
+     */
+    private void requestView() {
+        int request = ++viewRequest;
+        lastSortNanos = System.nanoTime();
+        if (sortColumn < 0 && filter.isEmpty()) {
+            if (view != null) {
+                view = null;
+                fireTableDataChanged();
+            }
+            return;
+        }
+        Chunk[] snapshot = chunks;
+        int rows = rowCount;
+        int column = sortColumn;
+        boolean ascendingOrder = ascending;
+        String text = filter;
+        sortExecutor.execute(() -> {
+            int[] order = computeOrder(snapshot, rows, column, ascendingOrder, text);
+            SwingUtilities.invokeLater(() -> {
+                if (request == viewRequest) {
+                    view = new View(order, rowCount);
+                    fireTableDataChanged();
+                }
+            });
+        });
+    }
+
+    private int[] computeOrder(Chunk[] snapshot, int rows, int column, boolean ascending, String filter) {
+        int[] candidates = new int[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (filter.isEmpty() || containsIgnoreCase(url(snapshot, row), filter)) {
+                candidates[count++] = row;
+            }
+        }
+        int[] order = Arrays.copyOf(candidates, count);
+        if (column < 0) {
+            return order;
+        }
+        if (column == COLUMN_URL) {
+            Comparator<Integer> byUrl = Comparator.comparing(row -> url(snapshot, row));
+            return IntStream.of(order).boxed()
+                .sorted(ascending ? byUrl : byUrl.reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+        // Ключ и номер строки упакованы в long, поэтому сортируется примитивный массив
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            int row = order[i];
+            packed[i] = ((long) sortKey(snapshot, row, column) << 32) | row;
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < count; i++) {
+            order[ascending ? i : count - 1 - i] = (int) packed[i];
+        }
+        return order;
+    }
+
+    /**
+     * Неотрицательный ключ сортировки; непроверенные строки идут первыми
+     */
+    private int sortKey(Chunk[] snapshot, int row, int column) {
+        Chunk chunk = snapshot[row >>> CHUNK_BITS];
+        int index = row & CHUNK_MASK;
+        if (chunk.outcomes[index] == NOT_CHECKED) {
+            return 0;
+        }
+        switch (column) {
+            case COLUMN_OUTCOME:
+                return chunk.outcomes[index] + 1;
+            case COLUMN_STATUS:
+                return chunk.statuses[index] + 1;
+            case COLUMN_RESPONSE_TIME:
+                return chunk.responseMillis[index] + 1;
+            default:
+                return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (chunk.checkedAt[index] - baseMillis) / 1000 + 1));
+        }
+    }
+
+    private static String[] outcomeKeys() {
+        WebsiteChecker.Outcome[] outcomes = WebsiteChecker.Outcome.values();
+        String[] keys = new String[outcomes.length];
+        for (WebsiteChecker.Outcome outcome : outcomes) {
+            // HTTP_ERROR -> results.outcome.http.error
+            keys[outcome.ordinal()] = "results.outcome." + outcome.name().toLowerCase(Locale.ROOT).replace('_', '.');
+        }
+        return keys;
+    }
+
+    private static String url(Chunk[] snapshot, int row) {
+        return snapshot[row >>> CHUNK_BITS].urls[row & CHUNK_MASK];
+    }
+
+    private static boolean containsIgnoreCase(String value, String lowerCaseText) {
+        int max = value.length() - lowerCaseText.length();
+        for (int i = 0; i <= max; i++) {
+            if (value.regionMatches(true, i, lowerCaseText, 0, lowerCaseText.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Общее число целей, без учета фильтра
+     */
+    public int getTargetCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getRowCount() {
+        return view == null ? rowCount : view.viewToModel.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_KEYS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return localization.getString(COLUMN_KEYS[column]);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == COLUMN_STATUS || column == COLUMN_RESPONSE_TIME ? Integer.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        int row = view == null ? rowIndex : view.viewToModel[rowIndex];
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int index = row & CHUNK_MASK;
+        if (columnIndex == COLUMN_URL) {
+            return chunk.urls[index];
+        }
+        byte outcome = chunk.outcomes[index];
+        if (outcome == NOT_CHECKED) {
+            return null;
+        }
+        switch (columnIndex) {
+            case COLUMN_OUTCOME:
+                return localization.getString(OUTCOME_KEYS[outcome]);
+            case COLUMN_STATUS:
+                int status = chunk.statuses[index];
+                return status == 0 ? null : status;
+            case COLUMN_RESPONSE_TIME:
+                return chunk.responseMillis[index];
+            default:
+                return TIME_FORMAT.format(Instant.ofEpochMilli(chunk.checkedAt[index]));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Немодальное окно непрерывного мониторинга списка сайтов.
+ * Результаты всех целей показываются в таблице и обновляются по мере проверок,
+ * не блокируя главное окно и новые проверки.
+ */
+public class ResultsWindow extends JFrame {
+    private static final long INTERVAL_MILLIS = 30_000;
+    private static final long JITTER_MILLIS = 5_000;
+
+    private final LocalizationManager localization = LocalizationManager.getInstance();
+    private final ResultsTableModel model = new ResultsTableModel();
+    // Идентификатор цели планировщика -> строка модели
+    private final ConcurrentHashMap<Integer, Integer> targetRows = new ConcurrentHashMap<>();
+    private final MonitoringScheduler scheduler;
+    private JTable table;
+    private JTextField urlField;
+    private JTextField filterField;
+    private JLabel countLabel;
+
+    public ResultsWindow() {
+        scheduler = new MonitoringScheduler(BulkWebsiteChecker.DEFAULT_MAX_IN_FLIGHT, (target, result) -> {
+            Integer row = targetRows.get(target.getId());
+            if (row != null) {
+                model.publish(row, result);
+            }
+        });
+        setTitle(localization.getString("results.title"));
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(800, 500);
+        initializeComponents();
+        setupLayout();
+        model.attach(table);
+        scheduler.start();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                scheduler.close();
+                model.detach();
+            }
+        });
+    }
+
+    private void initializeComponents() {
+        table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(ResultsTableModel.COLUMN_URL).setPreferredWidth(350);
+        // Сортировку выполняет модель в фоне, поэтому RowSorter не используется
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column >= 0) {
+                    model.toggleSort(column);
+                }
+            }
+        });
+
+        urlField = new JTextField(30);
+        urlField.addActionListener(e -> addUrlFromField());
+        filterField = new JTextField(15);
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                model.setFilter(filterField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                model.setFilter(filterField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                model.setFilter(filterField.getText());
+            }
+        });
+        countLabel = new JLabel();
+        updateCount();
+    }
+
+    private void setupLayout() {
+        setLayout(new BorderLayout());
+
+        JButton addButton = new JButton(localization.getString("results.add"));
+        addButton.addActionListener(e -> addUrlFromField());
+        JButton loadButton = new JButton(localization.getString("results.load"));
+        loadButton.addActionListener(e -> loadUrlsFromFile());
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlPanel.add(urlField);
+        controlPanel.add(addButton);
+        controlPanel.add(loadButton);
+        controlPanel.add(new JLabel(localization.getString("results.filter") + ":"));
+        controlPanel.add(filterField);
+
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.add(countLabel);
+
+        add(controlPanel, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(statusPanel, BorderLayout.SOUTH);
+    }
+
+    private void addUrlFromField() {
+        String url = urlField.getText().trim();
+        if (!url.isEmpty()) {
+            addTargets(Collections.singletonList(url));
+            urlField.setText("");
+        }
+    }
+
+    private void loadUrlsFromFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        // Файл читается в фоне, цели добавляются в EDT одним пакетом
+        new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() throws IOException {
+                List<String> urls = new ArrayList<>();
+                try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    for (String url : BatchCheckApplication.urls(reader)) {
+                        urls.add(url);
+                    }
+                }
+                return urls;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    addTargets(get());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(ResultsWindow.this,
+                        localization.getString("results.load.error", cause.getMessage()),
+                        getTitle(), JOptionPane.WARNING_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void addTargets(List<String> urls) {
+        int firstRow = model.addRows(urls);
+        for (int i = 0; i < urls.size(); i++) {
+            MonitoringScheduler.Target target = scheduler.addTarget(urls.get(i), INTERVAL_MILLIS, JITTER_MILLIS);
+            targetRows.put(target.getId(), firstRow + i);
+        }
+        updateCount();
+    }
+
+    private void updateCount() {
+        countLabel.setText(localization.getString("results.count", model.getTargetCount()));
+    }
+}
@@ -0,0 +1,341 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Проверка доступности TCP порта без HTTP запроса.
+ * <p>
+ * Все подключения неблокирующие и обслуживаются одним потоком с Selector: поток не ждет
+ * отдельное подключение, поэтому одновременно проверяются тысячи адресов. Порт считается
+ * открытым, если TCP соединение установлено; соединение сразу закрывается.
+ * Таймаут задается для каждой проверки и отсчитывается от начала подключения.
+ * <p>
+ * Разрешение имен блокирующее и выполняется в исполнителе проверок; IP адреса не разрешаются.
+ * Зависимые задачи возвращенных CompletableFuture выполняются в потоке Selector
+ * и должны быть короткими.
+ */
+public class TcpProbe implements AutoCloseable {
+    public static final int DEFAULT_TIMEOUT_MS = WebsiteChecker.CONNECT_TIMEOUT_MS;
+    public static final int DEFAULT_MAX_OPEN = 4096;
+
+    /**
+     * Одна проверка. Поля, кроме future, используются только потоком Selector
+     * после постановки в очередь
+     */
+    private static final class Attempt {
+        final String target;
+        final InetSocketAddress address;
+        final long timeoutNanos;
+        final long dnsNanos;
+        final long startNanos;
+        final CompletableFuture<WebsiteChecker.CheckResult> future;
+        long connectStartNanos;
+        long deadlineNanos;
+        SocketChannel channel;
+        boolean finished;
+
+        Attempt(String target, InetSocketAddress address, long timeoutNanos, long dnsNanos, long startNanos,
+                CompletableFuture<WebsiteChecker.CheckResult> future) {
+            this.target = target;
+            this.address = address;
+            this.timeoutNanos = timeoutNanos;
+            this.dnsNanos = dnsNanos;
+            this.startNanos = startNanos;
+            this.future = future;
+        }
+    }
+
+    private static class SharedHolder {
+        private static final TcpProbe INSTANCE = new TcpProbe(DEFAULT_MAX_OPEN);
+    }
+
+    private final int maxOpen;
+    private final Selector selector;
+    private final Thread selectorThread;
+    private final ConcurrentLinkedQueue<Attempt> pending = new ConcurrentLinkedQueue<>();
+    // Сбрасывается потоком Selector перед разбором очереди; избавляет от лишних wakeup()
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    // Сроки открытых подключений; завершенные проверки удаляются лениво при наступлении срока
+    private final PriorityQueue<Attempt> deadlines =
+        new PriorityQueue<>((a, b) -> Long.compare(a.deadlineNanos - b.deadlineNanos, 0));
+    private volatile boolean running = true;
+    private int open;
+
+    /**
+     * @param maxOpen сколько подключений держать открытыми одновременно;
+     *                остальные проверки ждут в очереди
+     */
+    public TcpProbe(int maxOpen) {
+        if (maxOpen < 1) {
+            throw new IllegalArgumentException("maxOpen must be positive: " + maxOpen);
+        }
+        this.maxOpen = maxOpen;
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open selector", e);
+        }
+        selectorThread = new Thread(this::selectLoop, "tcp-probe");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Общий экземпляр с одним потоком Selector
+     */
+    public static TcpProbe shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    public CompletableFuture<WebsiteChecker.CheckResult> probe(String target) {
+        return probe(target, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Проверяет, что TCP порт цели принимает соединения
+     * @param target host:port или URL; без порта используется порт схемы (80 или 443)
+     * @param timeoutMillis таймаут подключения, мс
+     * @return CompletableFuture с результатом; не завершается исключением. Отмена не закрывает
+     *         начатое подключение сразу: оно закрывается по событию Selector или по таймауту
+     */
+    public CompletableFuture<WebsiteChecker.CheckResult> probe(String target, int timeoutMillis) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<WebsiteChecker.CheckResult> future = new CompletableFuture<>();
+        boolean attempt = CheckMetrics.started();
+        future.whenComplete((result, error) -> {
+            if (result != null) {
+                CheckMetrics.completed(result, attempt);
+            } else {
+                CheckMetrics.cancelled(attempt);
+            }
+        });
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        String host;
+        int port;
+        try {
+            URI uri = URI.create(WebsiteChecker.normalizeUrl(target.trim()));
+            host = uri.getHost();
+            if (host == null) {
+                throw new IllegalArgumentException("No host in " + target);
+            }
+            port = uri.getPort() != -1 ? uri.getPort() : "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        } catch (IllegalArgumentException e) {
+            future.complete(WebsiteChecker.failureResult(e, target, System.nanoTime() - startNanos));
+            return future;
+        }
+        if (isAddressLiteral(host)) {
+            resolveAndEnqueue(target, host, port, timeoutNanos, startNanos, future);
+        } else {
+            CheckExecutors.shared().execute(
+                () -> resolveAndEnqueue(target, host, port, timeoutNanos, startNanos, future));
+        }
+        return future;
+    }
+
+    /**
+     * IP адрес, для которого InetAddress не обращается к DNS
+     */
+    private static boolean isAddressLiteral(String host) {
+        if (host.indexOf(':') >= 0 || host.startsWith("[")) {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void resolveAndEnqueue(String target, String host, int port, long timeoutNanos, long startNanos,
+                                   CompletableFuture<WebsiteChecker.CheckResult> future) {
+        if (future.isDone()) {
+            return;
+        }
+        InetSocketAddress address;
+        try {
+            address = new InetSocketAddress(InetAddress.getByName(host), port);
+        } catch (UnknownHostException e) {
+            long totalNanos = System.nanoTime() - startNanos;
+            future.complete(WebsiteChecker.failureResult(e, target, totalNanos, WebsiteChecker.NOT_MEASURED,
+                WebsiteChecker.NOT_MEASURED, totalNanos));
+            return;
+        }
+        if (!running) {
+            future.cancel(false);
+            return;
+        }
+        pending.add(new Attempt(target, address, timeoutNanos, System.nanoTime() - startNanos, startNanos, future));
+        CheckMetrics.QUEUED.increment();
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                wakeupPending.set(false);
+                startPending();
+                long waitNanos = expireDeadlines();
+                if (waitNanos > 0) {
+                    // select(0) ждет бесконечно, поэтому округляем вверх до миллисекунды
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999)));
+                } else {
+                    selector.select();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishConnect((Attempt) key.attachment());
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Selector закрыт или сломан - ниже завершаем оставшиеся проверки
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                Attempt attempt = (Attempt) key.attachment();
+                closeChannel(attempt);
+                attempt.future.cancel(false);
+            }
+            for (Attempt attempt; (attempt = pending.poll()) != null; ) {
+                CheckMetrics.QUEUED.decrement();
+                attempt.future.cancel(false);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Закрываем при остановке; ошибка закрытия ничего не меняет
+            }
+        }
+    }
+
+    /**
+     * Начинает подключения из очереди, пока не исчерпан лимит открытых
+     */
+    private void startPending() {
+        while (open < maxOpen) {
+            Attempt attempt = pending.poll();
+            if (attempt == null) {
+                return;
+            }
+            CheckMetrics.QUEUED.decrement();
+            if (attempt.future.isDone()) {
+                // Отменена до начала подключения
+                continue;
+            }
+            attempt.connectStartNanos = System.nanoTime();
+            attempt.deadlineNanos = attempt.connectStartNanos + attempt.timeoutNanos;
+            try {
+                SocketChannel channel = SocketChannel.open();
+                attempt.channel = channel;
+                open++;
+                channel.configureBlocking(false);
+                if (channel.connect(attempt.address)) {
+                    complete(attempt, null);
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+                    deadlines.add(attempt);
+                }
+            } catch (IOException e) {
+                complete(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Завершает просроченные подключения
+     * @return сколько ждать до ближайшего срока, нс, или 0, если сроков нет
+     */
+    private long expireDeadlines() {
+        long now = System.nanoTime();
+        Attempt head;
+        while ((head = deadlines.peek()) != null) {
+            if (head.finished) {
+                deadlines.poll();
+                continue;
+            }
+            long remaining = head.deadlineNanos - now;
+            if (remaining > 0) {
+                return remaining;
+            }
+            deadlines.poll();
+            complete(head, new SocketTimeoutException("connect timed out"));
+        }
+        return 0;
+    }
+
+    private void finishConnect(Attempt attempt) {
+        try {
+            // false - подключение еще не завершено: ключ остается зарегистрированным на OP_CONNECT
+            if (attempt.channel.finishConnect()) {
+                complete(attempt, null);
+            }
+        } catch (IOException e) {
+            complete(attempt, e);
+        }
+    }
+
+    /**
+     * Закрывает подключение и сообщает результат
+     * @param error ошибка подключения или null, если порт открыт
+     */
+    private void complete(Attempt attempt, IOException error) {
+        if (attempt.finished) {
+            return;
+        }
+        long now = System.nanoTime();
+        attempt.finished = true;
+        closeChannel(attempt);
+        long totalNanos = now - attempt.startNanos;
+        WebsiteChecker.CheckResult result;
+        if (error == null) {
+            long connectNanos = now - attempt.connectStartNanos;
+            // Номер порта в результате означает открытый TCP порт
+            result = WebsiteChecker.CheckResult.localized(WebsiteChecker.Outcome.AVAILABLE, 0,
+                attempt.address.getPort(), attempt.dnsNanos, connectNanos,
+                WebsiteChecker.NOT_MEASURED, WebsiteChecker.NOT_MEASURED, totalNanos);
+        } else {
+            result = WebsiteChecker.failureResult(error, attempt.target, attempt.dnsNanos,
+                WebsiteChecker.NOT_MEASURED, WebsiteChecker.NOT_MEASURED, totalNanos);
+        }
+        attempt.future.complete(result);
+    }
+
+    private void closeChannel(Attempt attempt) {
+        if (attempt.channel == null) {
+            return;
+        }
+        try {
+            // Закрытие канала отменяет и его регистрацию в Selector
+            attempt.channel.close();
+        } catch (IOException e) {
+            // Соединение все равно не используется
+        }
+        attempt.channel = null;
+        open--;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.gpm.example.mybatis.min.swing;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Обертка над SSLSocketFactory, отмечающая момент завершения TCP соединения.
+ * Фабрика не создает неподключенные сокеты, поэтому HttpsURLConnection сначала
+ * подключает обычный сокет, а затем вызывает createSocket(Socket, ...) для TLS поверх него.
+ * Этот сокет регистрируется для прерывания проверки, в том числе во время рукопожатия.
+ */
+final class TimingSSLSocketFactory extends SSLSocketFactory {
+    private final SSLSocketFactory delegate;
+    private final PhaseTimer timer;
+    private final CheckAbort abort;
+
+    TimingSSLSocketFactory(SSLSocketFactory delegate, PhaseTimer timer, CheckAbort abort) {
+        this.delegate = delegate;
+        this.timer = timer;
+        this.abort = abort;
+    }
+
+    @Override
+    public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+        timer.markTcpConnected();
+        abort.attach(socket);
+        return delegate.createSocket(socket, host, port, autoClose);
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return delegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return delegate.getSupportedCipherSuites();
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return delegate.createSocket(host, port, localHost, localPort);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return delegate.createSocket(host, port);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+        return delegate.createSocket(address, port, localAddress, localPort);
+    }
+}
@@ -12,12 +12,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class WebsiteCheckDialog extends JDialog {
     private CircularProgressBar progressBar;
-    private Timer animationTimer;
+    private AnimationClock.FrameListener animationListener;
     private Timer timeoutTimer;
     private AtomicBoolean shouldClose = new AtomicBoolean(false);
-    private int animationStep = 0;
-    private static final int ANIMATION_STEPS = 100;
+    // Последняя фаза, сообщенная потоком проверки, и фаза, уже показанная в EDT
+    private volatile WebsiteChecker.Phase reportedPhase;
+    private WebsiteChecker.Phase shownPhase;
+    // Предельное время проверки и запас на разрешение имени сверх таймаутов хоста
     private static final int TIMEOUT_SECONDS = 30;
+    private static final int RESOLVE_MARGIN_MS = 5000;
     private String websiteUrl;
     private CompletableFuture<WebsiteChecker.CheckResult> checkFuture;
     private JLabel statusLabel;
@@ -69,8 +72,9 @@ public class WebsiteCheckDialog extends JDialog {
     }
 
     private void startWebsiteCheck() {
-        // Запускаем проверку сайта асинхронно
-        checkFuture = WebsiteChecker.checkWebsiteAsync(websiteUrl);
+        // Запускаем проверку сайта асинхронно; повторный запрос того же URL
+        // присоединится к идущей проверке или получит недавний результат
+        checkFuture = CachingWebsiteChecker.shared().checkWebsiteAsync(websiteUrl, phase -> reportedPhase = phase);
         
         // Обрабатываем результат
         checkFuture.thenAccept(result -> {
@@ -81,32 +85,77 @@ public class WebsiteCheckDialog extends JDialog {
     }
 
     private void startAnimation() {
-        // Анимация с интервалом 300ms для одного цикла за 30 секунд
-        animationTimer = new Timer(300, new ActionListener() {
+        // Поток проверки только записывает фазу, а индикатор читает ее на кадрах общего
+        // AnimationClock: частые события сводятся к одному обновлению за кадр
+        animationListener = new AnimationClock.FrameListener() {
             @Override
-            public void actionPerformed(ActionEvent e) {
+            public void onFrame(long frameNanos) {
                 if (shouldClose.get()) {
                     return;
                 }
                 
-                animationStep = (animationStep + 1) % ANIMATION_STEPS;
-                int progress = (animationStep * 100) / ANIMATION_STEPS;
+                WebsiteChecker.Phase phase = reportedPhase;
+                if (phase == null || phase == shownPhase) {
+                    return;
+                }
+                shownPhase = phase;
+                int progress = phaseProgress(phase);
                 progressBar.setProgress(progress);
                 progressBar.setText(String.format("%d%%", progress));
+                statusLabel.setText(localization.getString(phaseKey(phase)) + " " + websiteUrl);
             }
-        });
-        animationTimer.start();
+        };
+        AnimationClock.getInstance().register(progressBar, animationListener);
+    }
+
+    /**
+     * Доля индикатора, соответствующая началу фазы
+     */
+    private static int phaseProgress(WebsiteChecker.Phase phase) {
+        switch (phase) {
+            case RESOLVING:
+                return 5;
+            case CONNECTING:
+                return 25;
+            case TLS:
+                return 45;
+            case AWAITING_HEADERS:
+                return 70;
+            default:
+                return 100;
+        }
+    }
+
+    private static String phaseKey(WebsiteChecker.Phase phase) {
+        switch (phase) {
+            case RESOLVING:
+                return "dialog.check.phase.resolving";
+            case CONNECTING:
+                return "dialog.check.phase.connecting";
+            case TLS:
+                return "dialog.check.phase.tls";
+            case AWAITING_HEADERS:
+                return "dialog.check.phase.awaiting.headers";
+            default:
+                return "dialog.check.phase.done";
+        }
     }
 
     private void startTimeoutTimer() {
-        timeoutTimer = new Timer(TIMEOUT_SECONDS * 1000, new ActionListener() {
+        // Быстрому хосту не нужно ждать полные 30 секунд: срок следует из его таймаутов
+        int timeoutMillis = Math.min(TIMEOUT_SECONDS * 1000,
+            AdaptiveTimeouts.shared().totalTimeoutMillis(HostLimiter.hostKey(websiteUrl)) + RESOLVE_MARGIN_MS);
+        timeoutTimer = new Timer(timeoutMillis, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 if (!checkFuture.isDone()) {
-                    // Если проверка не завершилась за 30 секунд, прерываем её
+                    // Если проверка не завершилась в срок, прерываем её
                     checkFuture.cancel(true);
                     WebsiteChecker.CheckResult timeoutResult = new WebsiteChecker.CheckResult(
-                        false, localization.getString("result.timeout"), 30000);
+                        WebsiteChecker.Outcome.TIMEOUT,
+                        localization.getString("result.timeout", (timeoutMillis + 999) / 1000), timeoutMillis);
+                    // Прерванная проверка не дошла до CachingWebsiteChecker - учитываем ее здесь
+                    CheckHistory.shared().record(websiteUrl, timeoutResult);
                     closeDialogWithResult(timeoutResult);
                 }
             }
@@ -119,8 +168,8 @@ public class WebsiteCheckDialog extends JDialog {
         shouldClose.set(true);
         
         // Останавливаем таймеры
-        if (animationTimer != null) {
-            animationTimer.stop();
+        if (animationListener != null) {
+            AnimationClock.getInstance().unregister(animationListener);
         }
         if (timeoutTimer != null) {
             timeoutTimer.stop();
@@ -135,17 +184,20 @@ public class WebsiteCheckDialog extends JDialog {
         String title = result.isAvailable() ? 
             localization.getString("result.available.title") : 
             localization.getString("result.unavailable.title");
+        String unit = localization.getString("result.unit.ms");
         String message = String.format(
             "<html><body style='width: 300px; text-align: center;'>" +
             "<h3>%s</h3>" +
             "<p><b>%s:</b> %s</p>" +
             "<p><b>%s:</b> %s</p>" +
-            "<p><b>%s:</b> %d мс</p>" +
+            "<p><b>%s:</b> %d %s</p>" +
+            "%s" +
             "</body></html>",
             title, 
             localization.getString("result.url"), websiteUrl, 
             localization.getString("result.status"), result.getMessage(), 
-            localization.getString("result.response.time"), result.getResponseTime()
+            localization.getString("result.response.time"), result.getResponseTime(), unit,
+            formatTimingBreakdown(result, unit)
         );
         
         JOptionPane.showMessageDialog(
@@ -158,10 +210,32 @@ public class WebsiteCheckDialog extends JDialog {
         dispose();
     }
 
+    /**
+     * Формирует строки с временем фаз проверки; неизмеренные фазы пропускаются
+     */
+    private String formatTimingBreakdown(WebsiteChecker.CheckResult result, String unit) {
+        StringBuilder rows = new StringBuilder();
+        appendTiming(rows, "result.timing.dns", result.getDnsNanos(), unit);
+        appendTiming(rows, "result.timing.connect", result.getConnectNanos(), unit);
+        appendTiming(rows, "result.timing.tls", result.getTlsNanos(), unit);
+        appendTiming(rows, "result.timing.ttfb", result.getTtfbNanos(), unit);
+        if (rows.length() == 0) {
+            return "";
+        }
+        return "<p><b>" + localization.getString("result.timing") + ":</b></p>" + rows;
+    }
+
+    private void appendTiming(StringBuilder rows, String key, long nanos, String unit) {
+        if (nanos == WebsiteChecker.NOT_MEASURED) {
+            return;
+        }
+        rows.append(String.format("<p>%s: %.3f %s</p>", localization.getString(key), nanos / 1_000_000.0, unit));
+    }
+
     @Override
     public void dispose() {
-        if (animationTimer != null) {
-            animationTimer.stop();
+        if (animationListener != null) {
+            AnimationClock.getInstance().unregister(animationListener);
         }
         if (timeoutTimer != null) {
             timeoutTimer.stop();
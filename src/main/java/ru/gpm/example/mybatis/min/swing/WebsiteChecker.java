@@ -1,51 +1,327 @@
 package ru.gpm.example.mybatis.min.swing;
 
+import javax.net.ssl.HttpsURLConnection;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.URL;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
  * Класс для проверки доступности веб-сайта
  */
 public class WebsiteChecker {
+    // Таймауты по умолчанию и их верхние границы для AdaptiveTimeouts
+    static final int CONNECT_TIMEOUT_MS = 5000;
+    static final int READ_TIMEOUT_MS = 10000;
+    static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
+    
+    /**
+     * Значение времени фазы, которая не выполнялась или не измерялась
+     */
+    public static final long NOT_MEASURED = PhaseTimer.NOT_MEASURED;
+    
+    /**
+     * Категория результата проверки; соответствует ветвям обработки ошибок в checkWebsite
+     */
+    public enum Outcome {
+        AVAILABLE,
+        HTTP_ERROR,
+        UNKNOWN_HOST,
+        CONNECTION_ERROR,
+        TIMEOUT,
+        IO_ERROR,
+        UNEXPECTED,
+        // Ответ получен, но содержимое не прошло ContentCheck
+        CONTENT_MISMATCH;
+
+        private static final Outcome[] VALUES = values();
+
+        /**
+         * Возвращает категорию по порядковому номеру без копирования массива values()
+         */
+        public static Outcome ofOrdinal(int ordinal) {
+            return VALUES[ordinal];
+        }
+
+        /**
+         * Текст результата этой категории на текущем языке
+         * @param detail параметр сообщения, которого нет среди полей результата, или null
+         */
+        String message(CheckResult result, Object detail) {
+            LocalizationManager localization = LocalizationManager.getInstance();
+            long responseTime = result.getResponseTime();
+            switch (this) {
+                case AVAILABLE:
+                    // Открытый TCP порт: параметр - номер порта, время - время подключения
+                    return detail != null
+                        ? localization.getString("result.port.open.message", detail,
+                            result.getConnectNanos() / 1_000_000L)
+                        : localization.getString("result.available.message", result.getStatusCode(), responseTime);
+                case HTTP_ERROR:
+                    return localization.getString("result.unavailable.message", result.getStatusCode(), responseTime);
+                case CONTENT_MISMATCH:
+                    // Превышен размер тела: параметр - предел размера
+                    return detail != null
+                        ? localization.getString("result.content.too.large.message", detail, result.getStatusCode(),
+                            responseTime)
+                        : localization.getString("result.content.mismatch.message", result.getStatusCode(),
+                            responseTime);
+                case UNKNOWN_HOST:
+                    return localization.getString("error.unknown.host.with.time", detail, responseTime);
+                case CONNECTION_ERROR:
+                    return localization.getString("error.connection.with.time", responseTime);
+                case TIMEOUT:
+                    return localization.getString("error.timeout.with.time", responseTime);
+                case IO_ERROR:
+                    return localization.getString("error.io.with.time", detail, responseTime);
+                default:
+                    return localization.getString("error.unexpected.with.time", detail, responseTime);
+            }
+        }
+    }
+    
+    /**
+     * Фаза выполняющейся проверки
+     */
+    public enum Phase {
+        RESOLVING,
+        CONNECTING,
+        TLS,
+        AWAITING_HEADERS,
+        DONE
+    }
+    
+    /**
+     * Получатель фаз проверки. Вызывается в потоке проверки, поэтому не должен
+     * блокироваться и бросать исключения; обновление UI выполняется отдельно.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = phase -> { };
+
+        void onPhase(Phase phase);
+    }
     
     public static class CheckResult {
-        private final boolean isAvailable;
+        private final Outcome outcome;
+        private final int statusCode;
+        // Готовый текст сообщения или null, если текст формирует Outcome.message
         private final String message;
-        private final long responseTime;
+        // Параметр сообщения, которого нет среди полей: URL, текст исключения, порт, предел размера тела
+        private final Object detail;
+        private final long dnsNanos;
+        private final long connectNanos;
+        private final long tlsNanos;
+        private final long ttfbNanos;
+        private final long totalNanos;
+        
+        public CheckResult(Outcome outcome, String message, long responseTime) {
+            this(outcome, 0, message, NOT_MEASURED, NOT_MEASURED, NOT_MEASURED, NOT_MEASURED,
+                responseTime * 1_000_000L);
+        }
         
-        public CheckResult(boolean isAvailable, String message, long responseTime) {
-            this.isAvailable = isAvailable;
+        /**
+         * @param outcome категория результата
+         * @param statusCode код ответа HTTP или 0, если ответ не получен
+         * @param message готовый текст сообщения
+         * @param dnsNanos время разрешения имени хоста, нс
+         * @param connectNanos время установки TCP соединения, нс
+         * @param tlsNanos время TLS рукопожатия, нс
+         * @param ttfbNanos время от отправки запроса до получения заголовков ответа, нс
+         * @param totalNanos полное время проверки, нс
+         */
+        public CheckResult(Outcome outcome, int statusCode, String message, long dnsNanos, long connectNanos,
+                           long tlsNanos, long ttfbNanos, long totalNanos) {
+            this(outcome, statusCode, message, null, dnsNanos, connectNanos, tlsNanos, ttfbNanos, totalNanos);
+        }
+        
+        private CheckResult(Outcome outcome, int statusCode, String message, Object detail, long dnsNanos,
+                            long connectNanos, long tlsNanos, long ttfbNanos, long totalNanos) {
+            this.outcome = outcome;
+            this.statusCode = statusCode;
             this.message = message;
-            this.responseTime = responseTime;
+            this.detail = detail;
+            this.dnsNanos = dnsNanos;
+            this.connectNanos = connectNanos;
+            this.tlsNanos = tlsNanos;
+            this.ttfbNanos = ttfbNanos;
+            this.totalNanos = totalNanos;
         }
         
         public boolean isAvailable() {
-            return isAvailable;
+            return outcome == Outcome.AVAILABLE;
         }
         
+        public Outcome getOutcome() {
+            return outcome;
+        }
+        
+        /**
+         * Код ответа HTTP или 0, если ответ не получен
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+        
+        /**
+         * Текст результата на текущем языке. Формируется при каждом вызове: большинство
+         * результатов массовых проверок не показывается, и хранить для них текст незачем
+         */
         public String getMessage() {
-            return message;
+            return message != null ? message : outcome.message(this, detail);
         }
         
         public long getResponseTime() {
-            return responseTime;
+            return totalNanos / 1_000_000L;
+        }
+        
+        /**
+         * Время фаз в наносекундах; NOT_MEASURED, если фаза не выполнялась или не измерялась
+         */
+        public long getDnsNanos() {
+            return dnsNanos;
+        }
+        
+        public long getConnectNanos() {
+            return connectNanos;
+        }
+        
+        public long getTlsNanos() {
+            return tlsNanos;
+        }
+        
+        public long getTtfbNanos() {
+            return ttfbNanos;
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Тот же результат с другим полным временем; времена фаз сохраняются
+         */
+        CheckResult withTotalNanos(long totalNanos) {
+            return new CheckResult(outcome, statusCode, message, detail, dnsNanos, connectNanos, tlsNanos,
+                ttfbNanos, totalNanos);
+        }
+
+        /**
+         * Результат, текст которого формирует Outcome.message только при вызове getMessage()
+         * @param detail параметр сообщения, которого нет среди полей результата, или null
+         */
+        static CheckResult localized(Outcome outcome, int statusCode, Object detail, long dnsNanos,
+                                     long connectNanos, long tlsNanos, long ttfbNanos, long totalNanos) {
+            return new CheckResult(outcome, statusCode, null, detail, dnsNanos, connectNanos, tlsNanos, ttfbNanos,
+                totalNanos);
         }
     }
     
     /**
-     * Проверяет доступность сайта асинхронно
+     * Проверяет доступность сайта асинхронно.
+     * Блокирующая проверка выполняется в отдельном исполнителе, а не в общем ForkJoinPool.
      * @param urlString URL для проверки
      * @return CompletableFuture с результатом проверки
      */
     public static CompletableFuture<CheckResult> checkWebsiteAsync(String urlString) {
-        return CompletableFuture.supplyAsync(() -> {
-            return checkWebsite(urlString);
+        return checkWebsiteAsync(urlString, ProgressListener.NONE);
+    }
+
+    /**
+     * Проверяет доступность сайта асинхронно, сообщая о фазах проверки.
+     * Таймауты берутся из общей политики AdaptiveTimeouts по задержке хоста.
+     * Отмена возвращенного CompletableFuture прерывает проверку: соединение закрывается,
+     * и поток исполнителя освобождается, не дожидаясь таймаутов.
+     * @param urlString URL для проверки
+     * @param progress получатель фаз
+     * @return CompletableFuture с результатом проверки
+     */
+    public static CompletableFuture<CheckResult> checkWebsiteAsync(String urlString, ProgressListener progress) {
+        return checkWebsiteAsync(urlString, ProbeMode.GET, null, progress, AdaptiveTimeouts.shared());
+    }
+
+    /**
+     * Прерываемая асинхронная проверка
+     * @param contentCheck проверка содержимого ответа или null
+     * @param timeouts политика таймаутов, в которой учитывается результат, или null для таймаутов по умолчанию
+     */
+    static CompletableFuture<CheckResult> checkWebsiteAsync(String urlString, ProbeMode probeMode,
+                                                            ContentCheck contentCheck, ProgressListener progress,
+                                                            AdaptiveTimeouts timeouts) {
+        String host = HostLimiter.hostKey(urlString);
+        CheckAbort abort = new CheckAbort();
+        CompletableFuture<CheckResult> future = new AbortableFuture(abort);
+        Supplier<CheckResult> check = timeouts == null
+            ? () -> checkWebsite(urlString, probeMode, contentCheck, progress, abort, CONNECT_TIMEOUT_MS,
+                READ_TIMEOUT_MS)
+            : () -> checkWebsite(urlString, probeMode, contentCheck, progress, abort,
+                timeouts.connectTimeoutMillis(host), timeouts.readTimeoutMillis(host));
+        // Попытка составной проверки остается попыткой и в потоке исполнителя
+        boolean attempt = CheckMetrics.inAttempt();
+        CheckExecutors.shared().execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            abort.bind();
+            try {
+                CheckResult result = attempt ? CheckMetrics.attempt(check) : check.get();
+                if (timeouts != null && !abort.isAborted()) {
+                    timeouts.record(host, result);
+                }
+                future.complete(result);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                abort.unbind();
+            }
         });
+        return future;
+    }
+
+    /**
+     * CompletableFuture, отмена которого прерывает выполняющуюся проверку
+     */
+    private static final class AbortableFuture extends CompletableFuture<CheckResult> {
+        private final CheckAbort abort;
+
+        AbortableFuture(CheckAbort abort) {
+            this.abort = abort;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                abort.abort();
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * Проверяет набор сайтов, не более maxInFlight одновременно
+     * @param urls URL для проверки
+     * @param maxInFlight максимальное число одновременных проверок
+     * @param onResult слушатель, получающий результаты по мере завершения проверок
+     * @return CompletableFuture, завершающийся после обработки всех URL
+     */
+    public static CompletableFuture<Void> checkAll(Collection<String> urls, int maxInFlight,
+                                                   BiConsumer<String, CheckResult> onResult) {
+        BulkWebsiteChecker bulkChecker = new BulkWebsiteChecker(maxInFlight);
+        return bulkChecker.checkAll(urls, onResult).whenComplete((ignored, error) -> bulkChecker.close());
     }
     
     /**
@@ -54,66 +330,292 @@ public class WebsiteChecker {
      * @return результат проверки
      */
     public static CheckResult checkWebsite(String urlString) {
-        LocalizationManager localization = LocalizationManager.getInstance();
-        long startTime = System.currentTimeMillis();
+        return checkWebsite(urlString, ProbeMode.GET);
+    }
+
+    /**
+     * Проверяет доступность сайта синхронно
+     * @param urlString URL для проверки
+     * @param probeMode способ зондирования
+     * @return результат проверки
+     */
+    public static CheckResult checkWebsite(String urlString, ProbeMode probeMode) {
+        return checkWebsite(urlString, probeMode, ProgressListener.NONE);
+    }
+
+    /**
+     * Проверяет доступность сайта синхронно, сообщая о фазах проверки
+     * @param urlString URL для проверки
+     * @param probeMode способ зондирования
+     * @param progress получатель фаз; последней всегда приходит фаза DONE
+     * @return результат проверки
+     */
+    public static CheckResult checkWebsite(String urlString, ProbeMode probeMode, ProgressListener progress) {
+        return checkWebsite(urlString, probeMode, null, progress, new CheckAbort(), CONNECT_TIMEOUT_MS,
+            READ_TIMEOUT_MS);
+    }
+
+    /**
+     * Проверяет доступность сайта синхронно с заданными таймаутами
+     * @param urlString URL для проверки
+     * @param probeMode способ зондирования
+     * @param connectTimeoutMillis таймаут подключения, мс
+     * @param readTimeoutMillis таймаут чтения, мс
+     * @return результат проверки
+     */
+    public static CheckResult checkWebsite(String urlString, ProbeMode probeMode, int connectTimeoutMillis,
+                                           int readTimeoutMillis) {
+        return checkWebsite(urlString, probeMode, null, connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    /**
+     * Проверяет доступность и содержимое сайта синхронно с заданными таймаутами.
+     * Содержимое проверяется только у ответов 2xx и 3xx; тело читается запросом GET
+     * и при HEAD_FIRST. В режиме TCP_CONNECT содержимое не проверяется.
+     * @param urlString URL для проверки
+     * @param probeMode способ зондирования
+     * @param contentCheck проверка содержимого ответа или null
+     * @param connectTimeoutMillis таймаут подключения, мс
+     * @param readTimeoutMillis таймаут чтения, мс
+     * @return результат проверки; CONTENT_MISMATCH, если содержимое не прошло проверку
+     */
+    public static CheckResult checkWebsite(String urlString, ProbeMode probeMode, ContentCheck contentCheck,
+                                           int connectTimeoutMillis, int readTimeoutMillis) {
+        return checkWebsite(urlString, probeMode, contentCheck, ProgressListener.NONE, new CheckAbort(),
+            connectTimeoutMillis, readTimeoutMillis);
+    }
+
+    private static CheckResult checkWebsite(String urlString, ProbeMode probeMode, ContentCheck contentCheck,
+                                            ProgressListener progress, CheckAbort abort, int connectTimeoutMillis,
+                                            int readTimeoutMillis) {
+        if (probeMode == ProbeMode.TCP_CONNECT) {
+            return awaitTcpProbe(urlString, progress, connectTimeoutMillis);
+        }
+        boolean attempt = CheckMetrics.started();
+        CheckResult result = checkHttp(urlString, probeMode, contentCheck, progress, abort, connectTimeoutMillis,
+            readTimeoutMillis);
+        if (abort.isAborted()) {
+            // Результат прерванной проверки никому не передается - учитываем отмену
+            CheckMetrics.cancelled(attempt);
+        } else {
+            CheckMetrics.completed(result, attempt);
+        }
+        return result;
+    }
+
+    /**
+     * Ожидает проверку TcpProbe; подключение и учет в метриках выполняет поток TcpProbe
+     */
+    private static CheckResult awaitTcpProbe(String urlString, ProgressListener progress, int connectTimeoutMillis) {
+        long startNanos = System.nanoTime();
+        progress.onPhase(Phase.CONNECTING);
+        CompletableFuture<CheckResult> probe = TcpProbe.shared().probe(urlString, connectTimeoutMillis);
+        try {
+            return probe.get();
+        } catch (InterruptedException e) {
+            // Прерывание проверки прерывает и ожидание результата
+            probe.cancel(false);
+            Thread.currentThread().interrupt();
+            return failureResult(e, urlString, System.nanoTime() - startNanos);
+        } catch (ExecutionException e) {
+            return failureResult(e.getCause(), urlString, System.nanoTime() - startNanos);
+        } finally {
+            progress.onPhase(Phase.DONE);
+        }
+    }
+
+    private static CheckResult checkHttp(String urlString, ProbeMode probeMode, ContentCheck contentCheck,
+                                         ProgressListener progress, CheckAbort abort, int connectTimeoutMillis,
+                                         int readTimeoutMillis) {
+        PhaseTimer timer = new PhaseTimer(progress);
         
         try {
             // Добавляем протокол если его нет
-            if (!urlString.startsWith("http://") && !urlString.startsWith("https://")) {
-                urlString = "http://" + urlString;
-            }
+            urlString = normalizeUrl(urlString);
             
             URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             
-            // Устанавливаем таймаут
-            connection.setConnectTimeout(5000); // 5 секунд на подключение
-            connection.setReadTimeout(10000);   // 10 секунд на чтение
+            // Разрешаем имя заранее, чтобы измерить DNS отдельно;
+            // соединение затем берет адрес из кэша InetAddress
+            InetAddress.getAllByName(url.getHost());
+            timer.markResolved();
+            abort.checkNotAborted();
             
-            // Устанавливаем User-Agent
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+            // Для проверки содержимого нужно тело, поэтому HEAD не используется
+            boolean headFirst = probeMode == ProbeMode.HEAD_FIRST && contentCheck == null;
+            HttpURLConnection connection = openConnection(url, headFirst ? "HEAD" : "GET", timer, abort,
+                connectTimeoutMillis, readTimeoutMillis);
+            if (contentCheck != null) {
+                // Тело может быть дочитано не до конца - соединение не возвращается в пул keep-alive
+                connection.setRequestProperty("Connection", "close");
+            }
+            int responseCode = request(connection, timer);
             
-            int responseCode = connection.getResponseCode();
-            long endTime = System.currentTimeMillis();
-            long responseTime = endTime - startTime;
+            if (headFirst && ProbeMode.isHeadRejected(responseCode)) {
+                // Сервер не поддерживает HEAD - повторяем через GET.
+                // Connection: close не дает дочитывать тело для keep-alive,
+                // поэтому disconnect() просто закрывает сокет после заголовков
+                connection.disconnect();
+                timer.restartRequest();
+                connection = openConnection(url, "GET", timer, abort, connectTimeoutMillis, readTimeoutMillis);
+                connection.setRequestProperty("Connection", "close");
+                responseCode = request(connection, timer);
+            }
+            
+            if (contentCheck != null && responseCode >= 200 && responseCode < 400) {
+                ContentCheck.Verdict verdict;
+                try (InputStream body = connection.getInputStream()) {
+                    verdict = contentCheck.evaluate(body, connection.getContentLengthLong(),
+                        responseCharset(connection.getContentType()));
+                } finally {
+                    connection.disconnect();
+                }
+                if (verdict != ContentCheck.Verdict.MATCHED) {
+                    return contentMismatchResult(verdict, contentCheck, responseCode, timer);
+                }
+                return httpResult(responseCode, timer);
+            }
             
             connection.disconnect();
             
-            if (responseCode >= 200 && responseCode < 400) {
-                return new CheckResult(true, 
-                    localization.getString("result.available.message", responseCode, responseTime), 
-                    responseTime);
-            } else {
-                return new CheckResult(false, 
-                    localization.getString("result.unavailable.message", responseCode, responseTime), 
-                    responseTime);
-            }
+            return httpResult(responseCode, timer);
             
-        } catch (UnknownHostException e) {
-            long endTime = System.currentTimeMillis();
-            return new CheckResult(false, 
-                localization.getString("error.unknown.host.with.time", urlString, endTime - startTime), 
-                endTime - startTime);
-        } catch (ConnectException e) {
-            long endTime = System.currentTimeMillis();
-            return new CheckResult(false, 
-                localization.getString("error.connection.with.time", endTime - startTime), 
-                endTime - startTime);
-        } catch (SocketTimeoutException e) {
-            long endTime = System.currentTimeMillis();
-            return new CheckResult(false, 
-                localization.getString("error.timeout.with.time", endTime - startTime), 
-                endTime - startTime);
-        } catch (IOException e) {
-            long endTime = System.currentTimeMillis();
-            return new CheckResult(false, 
-                localization.getString("error.io.with.time", e.getMessage(), endTime - startTime), 
-                endTime - startTime);
         } catch (Exception e) {
-            long endTime = System.currentTimeMillis();
-            return new CheckResult(false, 
-                localization.getString("error.unexpected.with.time", e.getMessage(), endTime - startTime), 
-                endTime - startTime);
+            return failureResult(e, urlString, timer);
+        } finally {
+            timer.markDone();
+        }
+    }
+
+    private static HttpURLConnection openConnection(URL url, String method, PhaseTimer timer, CheckAbort abort,
+                                                    int connectTimeoutMillis, int readTimeoutMillis)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        
+        // Устанавливаем таймаут
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        
+        // Устанавливаем User-Agent
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        
+        if (connection instanceof HttpsURLConnection) {
+            // Отмечаем границу между TCP соединением и TLS рукопожатием
+            HttpsURLConnection https = (HttpsURLConnection) connection;
+            https.setSSLSocketFactory(new TimingSSLSocketFactory(https.getSSLSocketFactory(), timer, abort));
+        }
+        // После регистрации прерывание закрывает это соединение
+        abort.attach(connection);
+        return connection;
+    }
+
+    /**
+     * Подключается и ожидает заголовки ответа, отмечая фазы
+     */
+    private static int request(HttpURLConnection connection, PhaseTimer timer) throws IOException {
+        connection.connect();
+        timer.markConnected();
+        int responseCode = connection.getResponseCode();
+        timer.markHeaders();
+        return responseCode;
+    }
+
+    /**
+     * Кодировка из заголовка Content-Type; UTF-8, если не указана или не поддерживается
+     */
+    static Charset responseCharset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                parameter = parameter.trim();
+                if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                    } catch (IllegalArgumentException e) {
+                        // Неизвестная кодировка - читаем как UTF-8
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Добавляет протокол http://, если он не указан
+     */
+    static String normalizeUrl(String urlString) {
+        if (!urlString.regionMatches(true, 0, "http://", 0, 7)
+                && !urlString.regionMatches(true, 0, "https://", 0, 8)) {
+            return "http://" + urlString;
+        }
+        return urlString;
+    }
+
+    /**
+     * Формирует результат по полученному коду ответа HTTP, когда известно только полное время
+     * @param totalNanos полное время проверки, нс
+     */
+    static CheckResult httpResult(int responseCode, long totalNanos) {
+        return httpResult(responseCode, NOT_MEASURED, NOT_MEASURED, NOT_MEASURED, NOT_MEASURED, totalNanos);
+    }
+
+    static CheckResult httpResult(int responseCode, PhaseTimer timer) {
+        return httpResult(responseCode, timer.dnsNanos(), timer.connectNanos(), timer.tlsNanos(),
+            timer.ttfbNanos(), timer.elapsedNanos());
+    }
+
+    private static CheckResult httpResult(int responseCode, long dnsNanos, long connectNanos,
+                                          long tlsNanos, long ttfbNanos, long totalNanos) {
+        if (responseCode >= 200 && responseCode < 400) {
+            return CheckResult.localized(Outcome.AVAILABLE, responseCode, null,
+                dnsNanos, connectNanos, tlsNanos, ttfbNanos, totalNanos);
+        }
+        return CheckResult.localized(Outcome.HTTP_ERROR, responseCode, null,
+            dnsNanos, connectNanos, tlsNanos, ttfbNanos, totalNanos);
+    }
+
+    private static CheckResult contentMismatchResult(ContentCheck.Verdict verdict, ContentCheck contentCheck,
+                                                     int responseCode, PhaseTimer timer) {
+        boolean tooLarge = verdict == ContentCheck.Verdict.TOO_LARGE;
+        return CheckResult.localized(Outcome.CONTENT_MISMATCH, responseCode,
+            tooLarge ? contentCheck.getMaxBodyBytes() : null, timer.dnsNanos(), timer.connectNanos(),
+            timer.tlsNanos(), timer.ttfbNanos(), timer.elapsedNanos());
+    }
+
+    /**
+     * Формирует результат неудачной проверки по типу исключения
+     * @param totalNanos полное время проверки, нс
+     */
+    static CheckResult failureResult(Throwable e, String urlString, long totalNanos) {
+        return failureResult(e, urlString, NOT_MEASURED, NOT_MEASURED, NOT_MEASURED, totalNanos);
+    }
+
+    static CheckResult failureResult(Throwable e, String urlString, PhaseTimer timer) {
+        return failureResult(e, urlString, timer.dnsNanos(), timer.connectNanos(), timer.tlsNanos(),
+            timer.elapsedNanos());
+    }
+
+    static CheckResult failureResult(Throwable e, String urlString, long dnsNanos,
+                                     long connectNanos, long tlsNanos, long totalNanos) {
+        Object detail = null;
+        Outcome outcome;
+        if (e instanceof UnknownHostException
+                || (e instanceof ConnectException && e.getCause() instanceof UnresolvedAddressException)) {
+            // HttpClient сообщает о неизвестном хосте через ConnectException
+            outcome = Outcome.UNKNOWN_HOST;
+            detail = urlString;
+        } else if (e instanceof ConnectException) {
+            outcome = Outcome.CONNECTION_ERROR;
+        } else if (e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) {
+            outcome = Outcome.TIMEOUT;
+        } else if (e instanceof IOException) {
+            outcome = Outcome.IO_ERROR;
+            detail = e.getMessage();
+        } else {
+            outcome = Outcome.UNEXPECTED;
+            detail = e.getMessage();
         }
+        return CheckResult.localized(outcome, 0, detail, dnsNanos, connectNanos, tlsNanos,
+            NOT_MEASURED, totalNanos);
     }
 }